@@ -4,11 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
 @EntityScan(basePackages = {"com.remotejob.planservice.entity"})
 @EnableJpaRepositories(basePackages = {"com.remotejob.planservice.repository"})
+@EnableScheduling
 public class PlanServiceAPIApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,34 @@
+package com.remotejob.planservice.amqp;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/ingestion}) exposing the state, last decision and recent
+ * adjustments of the {@link IngestionThrottle}.
+ */
+@Component
+@Endpoint(id = "ingestion")
+public class IngestionEndpoint {
+
+    private final IngestionThrottle ingestionThrottle;
+    private final InvoiceEventLanes lanes;
+
+    public IngestionEndpoint(IngestionThrottle ingestionThrottle, InvoiceEventLanes lanes) {
+        this.ingestionThrottle = ingestionThrottle;
+        this.lanes = lanes;
+    }
+
+    @ReadOperation
+    public IngestionState state() {
+        return new IngestionState(lanes.laneCount(), ingestionThrottle.getConcurrencyLimit(),
+                ingestionThrottle.getLastDecision(), ingestionThrottle.getAdjustments());
+    }
+
+    public record IngestionState(int lanes, int concurrencyLimit, IngestionThrottle.Decision lastDecision,
+                                 List<IngestionThrottle.Decision> adjustments) {
+    }
+}
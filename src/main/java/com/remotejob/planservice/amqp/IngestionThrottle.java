@@ -0,0 +1,207 @@
+package com.remotejob.planservice.amqp;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts how hard invoice event ingestion uses the database to the saturation of the Hikari pool,
+ * so HTTP requests keep getting connections during load spikes.
+ * <p>
+ * Every tick the controller reads the pool's active connections and threads waiting for one, and the
+ * mean connection acquire time since the previous tick ({@code hikaricp.connections.acquire}). Then:
+ * <ul>
+ *     <li>saturated (threads waiting, slow acquires or active connections above the high watermark):
+ *     the lane concurrency limit is halved;</li>
+ *     <li>idle (nobody waiting, fast acquires, active connections below the low watermark):
+ *     the limit grows by one lane;</li>
+ *     <li>otherwise it is kept.</li>
+ * </ul>
+ * The limit applies to {@link InvoiceEventLanes}, where all database work of the listeners runs. The
+ * broker prefetch of the listener containers is left as configured: once lanes slow down,
+ * unacknowledged messages reach it and the broker stops delivering.
+ * <p>
+ * Decisions are counted in {@code ingestion.adjustments} by {@code action} and the current limit is the
+ * {@code ingestion.concurrency.limit} gauge. The {@code ingestion} actuator endpoint serves the last
+ * decision and the most recent adjustments; ticks that hold the limit are only counted, so the
+ * adjustment history is not flushed out by the holds of quiet periods.
+ */
+@Slf4j
+@Component
+public class IngestionThrottle {
+
+    public enum Action { DECREASE, INCREASE, HOLD }
+
+    /**
+     * One tick of the controller: what it observed and what it did.
+     */
+    public record Decision(Instant at, Action action, String reason, int activeConnections, int maxConnections,
+                           int threadsAwaiting, double meanAcquireMillis, int concurrencyLimit) {
+    }
+
+    private final InvoiceEventLanes lanes;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final Duration acquireThreshold;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final int historySize;
+    private final Deque<Decision> adjustments = new ArrayDeque<>();
+    private final Map<Action, Counter> decisionCounters = new EnumMap<>(Action.class);
+    private volatile Decision lastDecision;
+
+    private double lastAcquireTotalMillis;
+    private long lastAcquireCount;
+
+    public IngestionThrottle(InvoiceEventLanes lanes,
+                             DataSource dataSource,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.amqp.throttle.acquire-threshold:PT0.02S}") Duration acquireThreshold,
+                             @Value("${app.amqp.throttle.high-watermark:0.8}") double highWatermark,
+                             @Value("${app.amqp.throttle.low-watermark:0.5}") double lowWatermark,
+                             @Value("${app.amqp.throttle.history-size:100}") int historySize) {
+        this.lanes = lanes;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.acquireThreshold = acquireThreshold;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.historySize = historySize;
+        Gauge.builder("ingestion.concurrency.limit", lanes, InvoiceEventLanes::getConcurrencyLimit)
+                .description("Invoice event lanes allowed to use the database at the same time")
+                .register(meterRegistry);
+        for (Action action : Action.values()) {
+            decisionCounters.put(action, Counter.builder("ingestion.adjustments")
+                    .description("Decisions of the adaptive ingestion controller")
+                    .tag("action", action.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Observes the pool and adjusts the ingestion limits.
+     */
+    @Scheduled(fixedDelayString = "${app.amqp.throttle.interval:PT1S}",
+            initialDelayString = "${app.amqp.throttle.interval:PT1S}")
+    public void tick() {
+        HikariDataSource hikari = hikari();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return;
+        }
+        int active = pool.getActiveConnections();
+        int max = Math.max(1, hikari.getMaximumPoolSize());
+        int awaiting = pool.getThreadsAwaitingConnection();
+        double meanAcquireMillis = meanAcquireMillisSinceLastTick();
+        double utilization = (double) active / max;
+
+        int limit = lanes.getConcurrencyLimit();
+        Action action;
+        String reason;
+        if (awaiting > 0) {
+            action = Action.DECREASE;
+            reason = "threads awaiting a connection";
+        } else if (meanAcquireMillis > acquireThreshold.toMillis()) {
+            action = Action.DECREASE;
+            reason = "slow connection acquire";
+        } else if (utilization >= highWatermark) {
+            action = Action.DECREASE;
+            reason = "active connections above high watermark";
+        } else if (utilization <= lowWatermark && limit < lanes.laneCount()) {
+            action = Action.INCREASE;
+            reason = "pool idle";
+        } else {
+            action = Action.HOLD;
+            reason = "within watermarks";
+        }
+
+        int nextLimit = switch (action) {
+            case DECREASE -> Math.max(1, limit / 2);
+            case INCREASE -> Math.min(lanes.laneCount(), limit + 1);
+            case HOLD -> limit;
+        };
+        if (nextLimit == limit && action != Action.HOLD) {
+            action = Action.HOLD;
+            reason = reason + " (limit at bound)";
+        }
+        if (nextLimit != limit) {
+            lanes.setConcurrencyLimit(nextLimit);
+            log.info("🚦 [INGESTION] Lane concurrency adjusted | action={} | reason={} | limit={}->{} | active={}/{} | awaiting={} | acquire={}ms",
+                    action, reason, limit, nextLimit, active, max, awaiting, String.format("%.1f", meanAcquireMillis));
+        }
+        record(new Decision(Instant.now(), action, reason, active, max, awaiting, meanAcquireMillis, nextLimit));
+    }
+
+    /**
+     * @return the most recent decisions that changed the limit, newest first
+     */
+    public List<Decision> getAdjustments() {
+        synchronized (adjustments) {
+            return List.copyOf(adjustments);
+        }
+    }
+
+    /**
+     * @return the decision of the last tick, {@code null} before the first one
+     */
+    public Decision getLastDecision() {
+        return lastDecision;
+    }
+
+    public int getConcurrencyLimit() {
+        return lanes.getConcurrencyLimit();
+    }
+
+    private void record(Decision decision) {
+        decisionCounters.get(decision.action()).increment();
+        lastDecision = decision;
+        if (decision.action() == Action.HOLD) {
+            return;
+        }
+        synchronized (adjustments) {
+            adjustments.addFirst(decision);
+            while (adjustments.size() > historySize) {
+                adjustments.removeLast();
+            }
+        }
+    }
+
+    private double meanAcquireMillisSinceLastTick() {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire == null) {
+            return 0;
+        }
+        double total = acquire.totalTime(TimeUnit.MILLISECONDS);
+        long count = acquire.count();
+        double mean = count > lastAcquireCount ? (total - lastAcquireTotalMillis) / (count - lastAcquireCount) : 0;
+        lastAcquireTotalMillis = total;
+        lastAcquireCount = count;
+        return mean;
+    }
+
+    private HikariDataSource hikari() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.remotejob.planservice.amqp;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered processing lanes for invoice events.
+ * <p>
+ * Events are striped by {@code (userId, invoiceId)} onto a fixed number of lanes. Each lane is a
+ * FIFO queue drained by its own virtual thread, so events of the same invoice run one after the
+ * other in dispatch order while different invoices run in parallel. The number of lanes bounds the
+ * concurrent database work and should be sized against the connection pool. The number of lanes
+ * allowed to run a task at the same time can be lowered at runtime (see {@link IngestionThrottle})
+ * to leave connections to interactive traffic; lanes over the limit wait before their next task.
+ * <p>
+ * Lanes do not bound their queues; the broker prefetch of the listener containers limits how many
+ * unacknowledged messages can be waiting at any time.
+ */
+@Slf4j
+@Component
+public class InvoiceEventLanes {
+
+    private final List<BlockingQueue<Runnable>> queues;
+    private final List<Thread> threads;
+    private final Duration shutdownTimeout;
+    private final ReentrantLock gateLock = new ReentrantLock();
+    private final Condition gateOpened = gateLock.newCondition();
+    private int concurrencyLimit;
+    private int runningTasks;
+    private volatile boolean running = true;
+
+    public InvoiceEventLanes(@Value("${app.amqp.lanes.count:8}") int laneCount,
+                             @Value("${app.amqp.lanes.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("app.amqp.lanes.count must be at least 1");
+        }
+        this.shutdownTimeout = shutdownTimeout;
+        this.concurrencyLimit = laneCount;
+        this.queues = new ArrayList<>(laneCount);
+        this.threads = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            threads.add(Thread.ofVirtual().name("invoice-lane-" + lane).start(() -> drain(queue)));
+        }
+        log.info("🛣️  [LANES] Invoice event lanes started | lanes={}", laneCount);
+    }
+
+    /**
+     * Returns the lane events of the given invoice are processed on.
+     */
+    public int laneOf(String userId, UUID invoiceId) {
+        return Math.floorMod(Objects.hash(userId, invoiceId), queues.size());
+    }
+
+    /**
+     * Queues a task on the lane of the given invoice. The task runs after every task previously
+     * dispatched for the same invoice.
+     */
+    public void dispatch(String userId, UUID invoiceId, Runnable task) {
+        dispatch(laneOf(userId, invoiceId), task);
+    }
+
+    /**
+     * Queues a task on the given lane.
+     */
+    public void dispatch(int lane, Runnable task) {
+        if (!running) {
+            throw new IllegalStateException("Invoice event lanes are shut down");
+        }
+        queues.get(lane).add(task);
+    }
+
+    /**
+     * @return the number of lanes
+     */
+    public int laneCount() {
+        return queues.size();
+    }
+
+    /**
+     * Limits how many lanes may run a task at the same time, between 1 and the number of lanes.
+     * Running tasks are not interrupted; the new limit applies to the next tasks.
+     */
+    public void setConcurrencyLimit(int limit) {
+        gateLock.lock();
+        try {
+            concurrencyLimit = Math.clamp(limit, 1, queues.size());
+            gateOpened.signalAll();
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        gateLock.lock();
+        try {
+            return concurrencyLimit;
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    private void drain(BlockingQueue<Runnable> queue) {
+        while (running || !queue.isEmpty()) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                enterGate();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                log.error("❌ [LANES] Unhandled error in invoice event lane | lane={} | error={}",
+                        Thread.currentThread().getName(), ex.getMessage(), ex);
+            } finally {
+                leaveGate();
+            }
+        }
+    }
+
+    private void enterGate() throws InterruptedException {
+        gateLock.lock();
+        try {
+            while (runningTasks >= concurrencyLimit) {
+                gateOpened.await();
+            }
+            runningTasks++;
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    private void leaveGate() {
+        gateLock.lock();
+        try {
+            runningTasks--;
+            gateOpened.signal();
+        } finally {
+            gateLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks and lets the lanes finish what is queued, up to the shutdown timeout.
+     * Messages whose tasks do not complete are left unacknowledged and redelivered by the broker.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        // Wake lanes blocked on an empty queue so they can observe the shutdown
+        queues.forEach(queue -> queue.add(() -> { }));
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !thread.join(Duration.ofNanos(remaining))) {
+                thread.interrupt();
+            }
+        }
+        log.info("🛣️  [LANES] Invoice event lanes stopped");
+    }
+}
@@ -1,30 +1,187 @@
 package com.remotejob.planservice.amqp;
 
+import com.rabbitmq.client.Channel;
 import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
 import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
 import com.remotejob.planservice.service.InvoiceWorkerService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consumes invoice events and processes them on the {@link InvoiceEventLanes}, so events of the
+ * same invoice keep their order while different invoices are processed in parallel. Status updates
+ * go through the {@link InvoiceStatusCoalescer} first. Messages are acknowledged only after their
+ * lane has processed them. Failed messages are handed to the {@link RetryRouter}, which schedules a
+ * delayed retry or dead-letters them, and are requeued only if that republish fails.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class InvoiceEventsListener {
 
+    static final String REJECTION_REASON_HEADER = "x-rejection-reason";
+
     private final InvoiceWorkerService invoiceWorkerService;
+    private final InvoiceEventLanes lanes;
+    private final InvoiceStatusCoalescer statusCoalescer;
+    private final MessageConverter messageConverter;
+    private final RabbitTemplate rabbitTemplate;
+    private final RetryRouter retryRouter;
+    private final String invoiceStatusUpdatesQueueName;
+    private final String plansToCreateQueueName;
+    private final String plansToCreateInvalidQueueName;
+
+    public InvoiceEventsListener(InvoiceWorkerService invoiceWorkerService,
+                                 InvoiceEventLanes lanes,
+                                 InvoiceStatusCoalescer statusCoalescer,
+                                 MessageConverter messageConverter,
+                                 RabbitTemplate rabbitTemplate,
+                                 RetryRouter retryRouter,
+                                 @Value("${app.amqp.queues.invoice-status-updates}") String invoiceStatusUpdatesQueueName,
+                                 @Value("${app.amqp.queues.plans-to-create}") String plansToCreateQueueName,
+                                 @Value("${app.amqp.queues.plans-to-create-invalid}") String plansToCreateInvalidQueueName) {
+        this.invoiceWorkerService = invoiceWorkerService;
+        this.lanes = lanes;
+        this.statusCoalescer = statusCoalescer;
+        this.messageConverter = messageConverter;
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryRouter = retryRouter;
+        this.invoiceStatusUpdatesQueueName = invoiceStatusUpdatesQueueName;
+        this.plansToCreateQueueName = plansToCreateQueueName;
+        this.plansToCreateInvalidQueueName = plansToCreateInvalidQueueName;
+    }
 
-    @RabbitListener(queues = "${app.amqp.queues.invoice-status-updates}")
-    public void onInvoiceStatusUpdate(@Payload InvoiceStatusUpdateEvent event) {
+    @RabbitListener(queues = "${app.amqp.queues.invoice-status-updates}",
+            containerFactory = RabbitConfig.INVOICE_STATUS_CONTAINER_FACTORY)
+    public void onInvoiceStatusUpdate(@Payload InvoiceStatusUpdateEvent event, Message message, Channel channel,
+                                      @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
         log.info("[AMQP] Received InvoiceStatusUpdateEvent");
-        invoiceWorkerService.handleInvoiceStatusUpdate(event);
+        statusCoalescer.submit(event, () -> ack(channel, deliveryTag),
+                ex -> retryOrDeadLetter(invoiceStatusUpdatesQueueName, message, channel, ex));
+    }
+
+    @RabbitListener(queues = "${app.amqp.queues.plans-to-create}",
+            containerFactory = RabbitConfig.PLANS_TO_CREATE_CONTAINER_FACTORY)
+    public void onPlansToCreate(List<Message> messages, Channel channel) {
+        log.info("[AMQP] Received PlansToCreateEvent batch | size={}", messages.size());
+        Map<Integer, List<PlansToCreateEvent>> eventsByLane = new TreeMap<>();
+        Map<PlansToCreateEvent, Message> sources = new IdentityHashMap<>();
+        for (Message message : messages) {
+            PlansToCreateEvent event = convert(message);
+            if (event == null) {
+                ack(channel, message.getMessageProperties().getDeliveryTag());
+                continue;
+            }
+            eventsByLane.computeIfAbsent(lanes.laneOf(event.userId, event.invoiceId), lane -> new ArrayList<>()).add(event);
+            sources.put(event, message);
+        }
+        eventsByLane.forEach((lane, events) -> lanes.dispatch(lane, () -> {
+            Map<PlansToCreateEvent, String> rejections = new IdentityHashMap<>();
+            try {
+                invoiceWorkerService.handlePlansToCreateBatch(events, rejections::put);
+            } catch (RuntimeException ex) {
+                events.forEach(event -> retryOrDeadLetter(plansToCreateQueueName, sources.get(event), channel, ex));
+                return;
+            }
+            // Rejections are published and messages acked once the batch outcome is known, so a failed
+            // batch neither leaves rejected events in the invalid queue nor lets a failing ack route
+            // applied events for retry
+            for (PlansToCreateEvent event : events) {
+                Message message = sources.get(event);
+                long deliveryTag = message.getMessageProperties().getDeliveryTag();
+                String reason = rejections.get(event);
+                if (reason != null) {
+                    try {
+                        reject(message, reason);
+                    } catch (AmqpException ex) {
+                        nack(channel, deliveryTag, ex);
+                        continue;
+                    }
+                }
+                ack(channel, deliveryTag);
+            }
+        }));
+    }
+
+    private PlansToCreateEvent convert(Message message) {
+        message.getMessageProperties().setInferredArgumentType(PlansToCreateEvent.class);
+        try {
+            if (messageConverter.fromMessage(message) instanceof PlansToCreateEvent event) {
+                if (event.eventId == null) {
+                    event.eventId = message.getMessageProperties().getMessageId();
+                }
+                return event;
+            }
+            reject(message, "Payload is not a PlansToCreateEvent");
+        } catch (MessageConversionException ex) {
+            reject(message, "Unreadable PlansToCreateEvent: " + ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Routes a single message out of the batch to the invalid queue, keeping its body and headers.
+     */
+    private void reject(Message message, String reason) {
+        log.warn("[AMQP] Routing PlansToCreateEvent to invalid queue | queue={} | reason={}",
+                plansToCreateInvalidQueueName, reason);
+        message.getMessageProperties().setHeader(REJECTION_REASON_HEADER, reason);
+        rabbitTemplate.send(plansToCreateInvalidQueueName, message);
+    }
+
+    /**
+     * Hands a failed message to the {@link RetryRouter} and acknowledges it; if the message cannot be
+     * republished it is requeued so it is not lost.
+     */
+    private void retryOrDeadLetter(String queue, Message message, Channel channel, RuntimeException cause) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            retryRouter.route(queue, message, cause);
+        } catch (AmqpException ex) {
+            log.warn("[AMQP] Failed to republish failed message for retry | queue={} | error={}", queue, ex.getMessage());
+            nack(channel, deliveryTag, cause);
+            return;
+        }
+        ack(channel, deliveryTag);
+    }
+
+    /**
+     * Acknowledges a message. Never throws: if the channel is closed (e.g. the container stopped while
+     * lanes were draining) the broker redelivers the message, which the handlers tolerate.
+     */
+    private void ack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("[AMQP] Failed to ack message, it will be redelivered | deliveryTag={} | error={}",
+                    deliveryTag, ex.getMessage());
+        }
     }
 
-    @RabbitListener(queues = "${app.amqp.queues.plans-to-create}")
-    public void onPlansToCreate(@Payload PlansToCreateEvent event) {
-        log.info("[AMQP] Received PlansToCreateEvent");
-        invoiceWorkerService.handlePlansToCreate(event);
+    private void nack(Channel channel, long deliveryTag, Exception cause) {
+        log.error("[AMQP] Processing failed, requeueing message | deliveryTag={} | error={}",
+                deliveryTag, cause.getMessage(), cause);
+        try {
+            channel.basicNack(deliveryTag, false, true);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("[AMQP] Failed to nack message, it will be redelivered | deliveryTag={} | error={}",
+                    deliveryTag, ex.getMessage());
+        }
     }
 }
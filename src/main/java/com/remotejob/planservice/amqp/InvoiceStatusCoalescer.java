@@ -0,0 +1,182 @@
+package com.remotejob.planservice.amqp;
+
+import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
+import com.remotejob.planservice.service.InvoiceWorkerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces bursts of {@link InvoiceStatusUpdateEvent}s for the same invoice into a single write.
+ * <p>
+ * The first update of an invoice opens a short window keyed by {@code (userId, invoiceId)}; updates
+ * arriving within it are merged field by field in arrival order (later non-null values win). When
+ * the window closes the merged update is processed once on the invoice's {@link InvoiceEventLanes}
+ * lane, and the outcome is reported to every merged message. The number of open windows is bounded;
+ * beyond it updates are processed without coalescing. Open windows are flushed on shutdown.
+ * <p>
+ * {@code invoice.status.updates.coalesced} counts the writes saved and
+ * {@code invoice.status.updates.written} the writes performed.
+ */
+@Slf4j
+@Component
+public class InvoiceStatusCoalescer {
+
+    private final InvoiceWorkerService invoiceWorkerService;
+    private final InvoiceEventLanes lanes;
+    private final TaskScheduler taskScheduler;
+    private final Duration window;
+    private final int maxPending;
+    private final Counter coalescedCounter;
+    private final Counter writtenCounter;
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    public InvoiceStatusCoalescer(InvoiceWorkerService invoiceWorkerService,
+                                  InvoiceEventLanes lanes,
+                                  TaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.amqp.status-coalescing.window:PT0.05S}") Duration window,
+                                  @Value("${app.amqp.status-coalescing.max-pending:10000}") int maxPending) {
+        this.invoiceWorkerService = invoiceWorkerService;
+        this.lanes = lanes;
+        this.taskScheduler = taskScheduler;
+        this.window = window;
+        this.maxPending = maxPending;
+        this.coalescedCounter = Counter.builder("invoice.status.updates.coalesced")
+                .description("Invoice status updates merged into another update instead of being written")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("invoice.status.updates.written")
+                .description("Invoice status update writes performed")
+                .register(meterRegistry);
+        Gauge.builder("invoice.status.updates.pending", pending, Map::size)
+                .description("Invoices with an open coalescing window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submits a status update for coalescing.
+     *
+     * @param event     the update
+     * @param onSuccess called once the update, possibly merged with others, has been processed
+     * @param onFailure called with the error if processing the merged update failed
+     */
+    public void submit(InvoiceStatusUpdateEvent event, Runnable onSuccess, Consumer<RuntimeException> onFailure) {
+        Key key = new Key(event.userId, event.invoiceId);
+        if (window.isZero() || (pending.size() >= maxPending && !pending.containsKey(key))) {
+            Pending single = new Pending(event);
+            single.add(onSuccess, onFailure);
+            process(key, single);
+            return;
+        }
+        pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                Pending opened = new Pending(event);
+                opened.add(onSuccess, onFailure);
+                taskScheduler.schedule(() -> flush(k), Instant.now().plus(window));
+                return opened;
+            }
+            existing.merge(event);
+            existing.add(onSuccess, onFailure);
+            coalescedCounter.increment();
+            log.debug("🧩 [COALESCE] Status update merged | userId={} | invoiceId={} | merged={}",
+                    k.userId(), k.invoiceId(), existing.size());
+            return existing;
+        });
+    }
+
+    private void flush(Key key) {
+        Pending entry = pending.remove(key);
+        if (entry != null) {
+            process(key, entry);
+        }
+    }
+
+    private void process(Key key, Pending entry) {
+        lanes.dispatch(key.userId(), key.invoiceId(), () -> {
+            try {
+                invoiceWorkerService.handleInvoiceStatusUpdate(entry.event());
+                writtenCounter.increment();
+            } catch (RuntimeException ex) {
+                entry.failures().forEach(failure -> failure.accept(ex));
+                return;
+            }
+            // Outside the try: the write committed, so a failing callback must not trigger the failure path
+            entry.successes().forEach(success -> runSuccess(key, success));
+        });
+    }
+
+    private static void runSuccess(Key key, Runnable success) {
+        try {
+            success.run();
+        } catch (RuntimeException ex) {
+            log.warn("⚠️ [COALESCE] Success callback failed after the update was written | userId={} | invoiceId={} | error={}",
+                    key.userId(), key.invoiceId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Flushes every open window so no update is held back when the application stops.
+     */
+    @PreDestroy
+    public void flushAll() {
+        int count = pending.size();
+        pending.keySet().forEach(this::flush);
+        log.info("🧩 [COALESCE] Flushed open coalescing windows on shutdown | count={}", count);
+    }
+
+    private record Key(String userId, UUID invoiceId) {
+    }
+
+    /**
+     * Merged update of one invoice and the callbacks of every message merged into it.
+     * Only mutated inside {@link ConcurrentHashMap#compute}.
+     */
+    private static final class Pending {
+        private InvoiceStatusUpdateEvent event;
+        private final List<Runnable> successes = new ArrayList<>(1);
+        private final List<Consumer<RuntimeException>> failures = new ArrayList<>(1);
+
+        Pending(InvoiceStatusUpdateEvent first) {
+            this.event = first;
+        }
+
+        void merge(InvoiceStatusUpdateEvent later) {
+            event = event.mergedWith(later);
+        }
+
+        void add(Runnable onSuccess, Consumer<RuntimeException> onFailure) {
+            successes.add(onSuccess);
+            failures.add(onFailure);
+        }
+
+        int size() {
+            return successes.size();
+        }
+
+        InvoiceStatusUpdateEvent event() {
+            return event;
+        }
+
+        List<Runnable> successes() {
+            return successes;
+        }
+
+        List<Consumer<RuntimeException>> failures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.remotejob.planservice.amqp;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Converts message bodies in a binary Jackson format (Smile, CBOR) to and from objects.
+ * <p>
+ * The target type is the listener argument type inferred by the container; without one the body is
+ * read as a {@link JsonNode}. Unknown properties are ignored, as with the JSON converter.
+ */
+public class JacksonBinaryMessageConverter implements MessageConverter {
+
+    public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    public static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+    private final ObjectMapper objectMapper;
+    private final String contentType;
+
+    public JacksonBinaryMessageConverter(ObjectMapper objectMapper, String contentType) {
+        this.objectMapper = objectMapper;
+        this.contentType = contentType;
+    }
+
+    public static JacksonBinaryMessageConverter smile() {
+        return new JacksonBinaryMessageConverter(SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build(), SMILE_CONTENT_TYPE);
+    }
+
+    public static JacksonBinaryMessageConverter cbor() {
+        return new JacksonBinaryMessageConverter(CBORMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build(), CBOR_CONTENT_TYPE);
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        try {
+            messageProperties.setContentType(contentType);
+            byte[] body = objectMapper.writeValueAsBytes(object);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to encode " + contentType + " message", ex);
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        Type targetType = message.getMessageProperties().getInferredArgumentType();
+        try {
+            return objectMapper.readValue(message.getBody(),
+                    objectMapper.constructType(targetType != null ? targetType : JsonNode.class));
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to decode " + contentType + " message", ex);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.remotejob.planservice.amqp;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.springframework.amqp.support.postprocessor.AbstractDecompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses message bodies sent with {@code content_encoding: lz4}, in the LZ4 frame format
+ * produced by the {@code lz4} command line tool and the LZ4 frame libraries of other languages.
+ * Bodies that decompress to more than {@code maxDecompressedSize} bytes are refused.
+ */
+public class Lz4DecompressingPostProcessor extends AbstractDecompressingPostProcessor {
+
+    public static final String ENCODING = "lz4";
+
+    private final long maxDecompressedSize;
+
+    public Lz4DecompressingPostProcessor(long maxDecompressedSize) {
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
+    @Override
+    protected InputStream getDecompressorStream(InputStream compressed) throws IOException {
+        return new SizeLimitedInputStream(new LZ4FrameInputStream(compressed), maxDecompressedSize);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return ENCODING;
+    }
+}
@@ -1,21 +1,50 @@
 package com.remotejob.planservice.amqp;
 
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.amqp.support.postprocessor.GUnzipPostProcessor;
+import org.springframework.amqp.support.postprocessor.InflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.UnzipPostProcessor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class RabbitConfig {
 
+    public static final String INVOICE_STATUS_CONTAINER_FACTORY = "invoiceStatusContainerFactory";
+    public static final String PLANS_TO_CREATE_CONTAINER_FACTORY = "plansToCreateContainerFactory";
+
     @Value("${app.amqp.queues.invoice-status-updates}")
     private String invoiceStatusUpdatesQueueName;
 
     @Value("${app.amqp.queues.plans-to-create}")
     private String plansToCreateQueueName;
 
+    @Value("${app.amqp.queues.plans-to-create-invalid}")
+    private String plansToCreateInvalidQueueName;
+
     @Bean
     public Queue invoiceStatusUpdatesQueue() {
         return new Queue(invoiceStatusUpdatesQueueName, true);
@@ -26,8 +55,132 @@ public class RabbitConfig {
         return new Queue(plansToCreateQueueName, true);
     }
 
+    /**
+     * Exchange the {@link com.remotejob.planservice.outbox.PlanOutboxRelay} publishes plan changes to,
+     * with routing keys {@code plan.upserted} and {@code plan.deleted}.
+     */
+    @Bean
+    public TopicExchange planChangesExchange(@Value("${app.amqp.outbox.exchange:plan.changes}") String exchange) {
+        return new TopicExchange(exchange, true, false);
+    }
+
+    @Bean
+    public Queue plansToCreateInvalidQueue() {
+        return new Queue(plansToCreateInvalidQueueName, true);
+    }
+
+    /**
+     * Retry tiers and dead-letter queue of both invoice queues, used by {@link RetryRouter}.
+     * A retry queue has no consumer: its messages expire after their per-message TTL and are
+     * dead-lettered back to the source queue through the default exchange.
+     */
+    @Bean
+    public Declarables invoiceRetryQueues(@Value("${app.amqp.retry.delays:PT1S,PT10S,PT1M,PT10M}") List<Duration> delays) {
+        List<Declarable> queues = new ArrayList<>();
+        for (String source : List.of(invoiceStatusUpdatesQueueName, plansToCreateQueueName)) {
+            for (int tier = 1; tier <= delays.size(); tier++) {
+                queues.add(QueueBuilder.durable(RetryRouter.retryQueue(source, tier))
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(source)
+                        .build());
+            }
+            queues.add(QueueBuilder.durable(RetryRouter.deadLetterQueue(source)).build());
+        }
+        return new Declarables(queues);
+    }
+
+    /**
+     * Picks the decoder from the message {@code content_type}: Smile
+     * ({@value JacksonBinaryMessageConverter#SMILE_CONTENT_TYPE}), CBOR
+     * ({@value JacksonBinaryMessageConverter#CBOR_CONTENT_TYPE}), and JSON for anything else, so
+     * existing JSON producers are unaffected.
+     */
     @Bean
     public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(new Jackson2JsonMessageConverter());
+        converter.addDelegate(JacksonBinaryMessageConverter.SMILE_CONTENT_TYPE, JacksonBinaryMessageConverter.smile());
+        converter.addDelegate(JacksonBinaryMessageConverter.CBOR_CONTENT_TYPE, JacksonBinaryMessageConverter.cbor());
+        return converter;
+    }
+
+    /**
+     * Decompresses payloads according to their {@code content_encoding} ({@code gzip}, {@code zip},
+     * {@code deflate} or {@code lz4}) before conversion; uncompressed messages pass through unchanged.
+     * Every decoder stops at {@code max-decompressed-size}, so a compression bomb fails the message
+     * instead of the heap.
+     */
+    @Bean
+    public DelegatingDecompressingPostProcessor payloadDecompressor(
+            @Value("${app.amqp.max-decompressed-size:8MB}") DataSize maxDecompressedSize) {
+        long maxBytes = maxDecompressedSize.toBytes();
+        Map<String, MessagePostProcessor> decompressors = new HashMap<>();
+        decompressors.put("gzip", new GUnzipPostProcessor() {
+            @Override
+            protected InputStream getDecompressorStream(InputStream compressed) throws IOException {
+                return new SizeLimitedInputStream(super.getDecompressorStream(compressed), maxBytes);
+            }
+        });
+        decompressors.put("zip", new UnzipPostProcessor() {
+            @Override
+            protected InputStream getDecompressorStream(InputStream compressed) throws IOException {
+                return new SizeLimitedInputStream(super.getDecompressorStream(compressed), maxBytes);
+            }
+        });
+        decompressors.put("deflate", new InflaterPostProcessor() {
+            @Override
+            protected InputStream getDecompressorStream(InputStream compressed) throws IOException {
+                return new SizeLimitedInputStream(super.getDecompressorStream(compressed), maxBytes);
+            }
+        });
+        decompressors.put(Lz4DecompressingPostProcessor.ENCODING, new Lz4DecompressingPostProcessor(maxBytes));
+        DelegatingDecompressingPostProcessor decompressor = new DelegatingDecompressingPostProcessor();
+        decompressor.setDecompressors(decompressors);
+        return decompressor;
+    }
+
+    /**
+     * Listener container for the invoice-status-updates queue. Messages are handed off to the
+     * {@link InvoiceEventLanes} and acknowledged manually once their lane has processed them;
+     * the prefetch bounds how many can be in flight.
+     */
+    @Bean(name = INVOICE_STATUS_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory invoiceStatusContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            DelegatingDecompressingPostProcessor payloadDecompressor,
+            @Value("${app.amqp.lanes.prefetch:250}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAfterReceivePostProcessors(payloadDecompressor);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
+    /**
+     * Batch listener container for the plans-to-create queue: the listener receives up to
+     * {@code batch-size} messages, or whatever arrived within {@code batch-receive-timeout}.
+     * The batch is split across the {@link InvoiceEventLanes} and each message is acknowledged
+     * manually once its lane has processed it.
+     */
+    @Bean(name = PLANS_TO_CREATE_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory plansToCreateContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            DelegatingDecompressingPostProcessor payloadDecompressor,
+            @Value("${app.amqp.plans-to-create.batch-size:100}") int batchSize,
+            @Value("${app.amqp.plans-to-create.batch-receive-timeout:PT0.5S}") Duration batchReceiveTimeout,
+            @Value("${app.amqp.lanes.prefetch:250}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAfterReceivePostProcessors(payloadDecompressor);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setDeBatchingEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setReceiveTimeout(batchReceiveTimeout.toMillis());
+        return factory;
     }
 }
@@ -0,0 +1,49 @@
+package com.remotejob.planservice.amqp;
+
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * Decides whether a failed invoice event is worth retrying.
+ * <p>
+ * Lost connections, lock and serialization conflicts, timeouts and other transient database errors
+ * are retryable. Payloads that cannot be read, constraint violations and other non-transient data
+ * access errors, and invalid arguments are fatal: retrying them would fail the same way. Anything
+ * else is retried, since the retry tiers are bounded and end in the dead-letter queue anyway.
+ */
+@Component
+public class RetryClassifier {
+
+    /**
+     * @param failure the exception thrown while processing the event
+     * @return true if the event should be retried later, false if it should be dead-lettered now
+     */
+    public boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NonTransientDataAccessException
+                    || cause instanceof MessageConversionException
+                    || cause instanceof IllegalArgumentException) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.remotejob.planservice.amqp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Moves a failed message out of its queue without blocking the consumer: retryable failures are
+ * republished to the next retry tier, fatal failures and exhausted retries to the dead-letter queue.
+ * <p>
+ * Each source queue {@code q} has one retry queue per backoff delay, {@code q.retry.1 .. q.retry.n},
+ * and a dead-letter queue {@code q.dlq} (see {@link RabbitConfig}). A message sent to tier {@code i}
+ * carries the tier delay as its per-message TTL; when it expires the broker dead-letters it back to
+ * {@code q}. Every message in a tier has the same TTL, so expirations never queue up behind each other.
+ * The attempt count travels in the {@value #RETRY_COUNT_HEADER} header.
+ */
+@Slf4j
+@Component
+public class RetryRouter {
+
+    static final String RETRY_COUNT_HEADER = "x-retry-count";
+    static final String FAILURE_HEADER = "x-failure-reason";
+
+    public enum Outcome { RETRY, DEAD_LETTER }
+
+    private final RabbitOperations rabbitOperations;
+    private final RetryClassifier retryClassifier;
+    private final List<Duration> delays;
+
+    public RetryRouter(RabbitOperations rabbitOperations,
+                       RetryClassifier retryClassifier,
+                       @Value("${app.amqp.retry.delays:PT1S,PT10S,PT1M,PT10M}") List<Duration> delays) {
+        this.rabbitOperations = rabbitOperations;
+        this.retryClassifier = retryClassifier;
+        this.delays = List.copyOf(delays);
+    }
+
+    /**
+     * Republishes a message whose processing failed. The caller acknowledges the original delivery
+     * once this returns; if publishing fails the exception is propagated and the delivery should be
+     * requeued instead.
+     *
+     * @param queue   the queue the message was consumed from
+     * @param message the failed message
+     * @param failure the processing error
+     * @return where the message was sent
+     */
+    public Outcome route(String queue, Message message, Throwable failure) {
+        MessageProperties properties = message.getMessageProperties();
+        Object previous = properties.getHeader(RETRY_COUNT_HEADER);
+        int attempt = previous instanceof Number count ? count.intValue() + 1 : 1;
+        boolean retryable = retryClassifier.isRetryable(failure);
+
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setHeader(FAILURE_HEADER, String.valueOf(failure.getMessage()));
+
+        if (retryable && attempt <= delays.size()) {
+            Duration delay = delays.get(attempt - 1);
+            properties.setHeader(RETRY_COUNT_HEADER, attempt);
+            properties.setExpiration(String.valueOf(delay.toMillis()));
+            rabbitOperations.send(retryQueue(queue, attempt), message);
+            log.warn("🔁 [AMQP] Processing failed, retry scheduled | queue={} | attempt={} | delay={} | error={}",
+                    queue, attempt, delay, failure.getMessage());
+            return Outcome.RETRY;
+        }
+
+        properties.setExpiration(null);
+        rabbitOperations.send(deadLetterQueue(queue), message);
+        log.error("☠️  [AMQP] Processing failed, message dead-lettered | queue={} | attempts={} | retryable={} | error={}",
+                queue, attempt, retryable, failure.getMessage(), failure);
+        return Outcome.DEAD_LETTER;
+    }
+
+    /**
+     * @return the backoff delays, one per retry tier
+     */
+    public List<Duration> getDelays() {
+        return delays;
+    }
+
+    public static String retryQueue(String queue, int tier) {
+        return queue + ".retry." + tier;
+    }
+
+    public static String deadLetterQueue(String queue) {
+        return queue + ".dlq";
+    }
+}
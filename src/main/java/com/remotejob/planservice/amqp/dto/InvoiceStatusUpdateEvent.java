@@ -24,4 +24,18 @@ public class InvoiceStatusUpdateEvent {
 
     @Schema(description = "Job ID", example = "job-456")
     public String jobId;
+
+    /**
+     * Returns a copy of this update with the non-null fields of a later update applied on top.
+     */
+    public InvoiceStatusUpdateEvent mergedWith(InvoiceStatusUpdateEvent later) {
+        InvoiceStatusUpdateEvent merged = new InvoiceStatusUpdateEvent();
+        merged.userId = userId;
+        merged.invoiceId = invoiceId;
+        merged.status = later.status != null ? later.status : status;
+        merged.isActive = later.isActive != null ? later.isActive : isActive;
+        merged.expiresAt = later.expiresAt != null ? later.expiresAt : expiresAt;
+        merged.jobId = later.jobId != null ? later.jobId : jobId;
+        return merged;
+    }
 }
@@ -0,0 +1,27 @@
+package com.remotejob.planservice.amqp.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.remotejob.planservice.util.RawJson;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Schema(name = "PlanChangedMessage", description = "Published to the plan changes exchange after a plan is written")
+public class PlanChangedMessage {
+    @Schema(description = "Outbox sequence; increases with every change, consumers can ignore a change older than the last one applied for the plan",
+            example = "1024")
+    public long sequence;
+
+    @Schema(description = "Kind of change", allowableValues = {"UPSERTED", "DELETED"}, example = "UPSERTED")
+    public String type;
+
+    @Schema(description = "ID of the plan that changed", example = "8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab")
+    public UUID planId;
+
+    @Schema(description = "When the change was committed (ISO-8601)", example = "2025-01-31T12:00:00Z")
+    public Instant occurredAt;
+
+    @Schema(description = "Plan state after the change, or the last state for DELETED", implementation = JsonNode.class)
+    public RawJson plan;
+}
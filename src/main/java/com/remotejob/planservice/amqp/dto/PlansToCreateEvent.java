@@ -8,6 +8,11 @@ import java.util.UUID;
 
 @Schema(name = "PlansToCreateEvent", description = "Event payload to create or update plans from async messages")
 public class PlansToCreateEvent {
+    @Schema(description = "Producer-assigned ID of the event, the same on every redelivery or replay of it; "
+            + "events already applied are recognized by it. Defaults to the AMQP message_id",
+            example = "invoice-f54a0b7c-paid-1")
+    public String eventId;
+
     @Schema(description = "Existing plan ID for updates (omit for create)", example = "8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab")
     public UUID id; // optional for updates
 
@@ -0,0 +1,145 @@
+package com.remotejob.planservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for plans looked up by id.
+ * <p>
+ * Entries are limited by size and by a TTL, and never outlive the plan's own
+ * {@code expiresAt}. Entries are refreshed or evicted from {@link PlanChangedEvent}s
+ * once the write has committed. Hit, miss and eviction counters are published to Micrometer
+ * under the {@code cache.*} meters with {@code cache=plans}.
+ */
+@Slf4j
+@Component
+public class PlanCache {
+
+    public static final String CACHE_NAME = "plans";
+
+    private final Cache<UUID, Plan> cache;
+
+    public PlanCache(
+            @Value("${app.cache.plan.max-size:10000}") long maxSize,
+            @Value("${app.cache.plan.ttl:PT5M}") Duration ttl,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PlanExpiry(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("🗄️  [CACHE] Plan cache initialized | maxSize={} | ttl={}", maxSize, ttl);
+    }
+
+    /**
+     * Returns the cached plan for the given id, loading and caching it on a miss.
+     * Missing plans are not cached.
+     *
+     * @param id     the plan id
+     * @param loader the function used to load the plan on a miss
+     * @return the plan, or empty if the loader did not find it
+     */
+    public Optional<Plan> get(UUID id, Function<UUID, Optional<Plan>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Returns the cached plan for the given id without loading it.
+     */
+    public Optional<Plan> getIfPresent(UUID id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Refreshes or evicts the entry for a plan that was written.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        if (event.isDeleted()) {
+            evict(event.planId());
+        } else {
+            put(event.plan());
+        }
+    }
+
+    /**
+     * Caches the given state of the plan unless a newer version of it is already cached.
+     * A batch load racing with a committed write can therefore never overwrite the fresher entry.
+     */
+    public void put(Plan plan) {
+        if (plan == null || plan.getId() == null) {
+            return;
+        }
+        Plan cached = cache.asMap().compute(plan.getId(),
+                (id, current) -> current != null && isNewer(current, plan) ? current : plan);
+        if (cached == plan) {
+            log.debug("🗄️  [CACHE] Plan refreshed | planId={} | version={}", plan.getId(), plan.getVersion());
+        } else {
+            log.debug("🗄️  [CACHE] Stale plan not cached | planId={} | version={} | cachedVersion={}",
+                    plan.getId(), plan.getVersion(), cached.getVersion());
+        }
+    }
+
+    /**
+     * Removes the plan from the cache.
+     */
+    public void evict(UUID id) {
+        if (id == null) {
+            return;
+        }
+        cache.invalidate(id);
+        log.debug("🗄️  [CACHE] Plan evicted | planId={}", id);
+    }
+
+    private static boolean isNewer(Plan plan, Plan other) {
+        return plan.getVersion() != null && other.getVersion() != null && plan.getVersion() > other.getVersion();
+    }
+
+    /**
+     * Expires entries after the configured TTL or at the plan's {@code expiresAt},
+     * whichever comes first. Reads do not extend the lifetime of an entry.
+     */
+    private record PlanExpiry(Duration ttl) implements Expiry<UUID, Plan> {
+
+        @Override
+        public long expireAfterCreate(UUID key, Plan plan, long currentTime) {
+            return nanosToLive(plan);
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID key, Plan plan, long currentTime, long currentDuration) {
+            return nanosToLive(plan);
+        }
+
+        @Override
+        public long expireAfterRead(UUID key, Plan plan, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long nanosToLive(Plan plan) {
+            Instant now = Instant.now();
+            Instant expiresAt = plan.getExpiresAt();
+            if (expiresAt == null || expiresAt.isAfter(now.plus(ttl))) {
+                return ttl.toNanos();
+            }
+            return Math.max(0L, Duration.between(now, expiresAt).toNanos());
+        }
+    }
+}
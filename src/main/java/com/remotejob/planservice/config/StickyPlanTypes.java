@@ -0,0 +1,67 @@
+package com.remotejob.planservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Holds the plan types that are considered "sticky" on the job board.
+ * <p>
+ * The plan type is the numeric {@code id} stored in the plan metadata and
+ * denormalized into the {@code plan_type} column. The sticky types are 5 (24h),
+ * 6 (1 week) and 7 (1 month); they are fixed because the {@code idx_plan_active_sticky}
+ * partial index hard-codes the same list, so both must be changed together.
+ */
+@Component
+public class StickyPlanTypes {
+
+    /** Sticky plan types, kept in sync with the {@code idx_plan_active_sticky} index predicate. */
+    public static final Set<Integer> TYPES = Set.of(5, 6, 7);
+
+    private static final BigDecimal MIN_PLAN_TYPE = BigDecimal.valueOf(Integer.MIN_VALUE);
+    private static final BigDecimal MAX_PLAN_TYPE = BigDecimal.valueOf(Integer.MAX_VALUE);
+
+    /**
+     * Returns the sticky plan types.
+     *
+     * @return an immutable set of plan types
+     */
+    public Set<Integer> getTypes() {
+        return TYPES;
+    }
+
+    /**
+     * Checks whether the given plan type is a sticky plan type.
+     *
+     * @param planType the plan type, may be null
+     * @return true if the plan type is sticky
+     */
+    public boolean isSticky(Integer planType) {
+        return planType != null && TYPES.contains(planType);
+    }
+
+    /**
+     * Resolves the plan type from plan metadata, mirroring the {@code plan_type} column:
+     * the {@code id} counts only when it is an integral number within the integer range.
+     *
+     * @param metadata the plan metadata, may be null
+     * @return the numeric {@code id} from the metadata, or null if absent, fractional or out of range
+     */
+    public static Integer planTypeOf(JsonNode metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        JsonNode idNode = metadata.get("id");
+        if (idNode == null || !idNode.isNumber()) {
+            return null;
+        }
+        BigDecimal id = idNode.decimalValue();
+        boolean integral = id.signum() == 0 || id.stripTrailingZeros().scale() <= 0;
+        if (!integral || id.compareTo(MIN_PLAN_TYPE) < 0 || id.compareTo(MAX_PLAN_TYPE) > 0) {
+            return null;
+        }
+        return id.intValueExact();
+    }
+}
@@ -1,12 +1,30 @@
 package com.remotejob.planservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.remotejob.planservice.dto.JobDecorationDto;
+import com.remotejob.planservice.dto.PlanBatchRequestDto;
+import com.remotejob.planservice.dto.PlanBatchResponseDto;
 import com.remotejob.planservice.dto.PlanDto;
+import com.remotejob.planservice.dto.PlanChangeDto;
+import com.remotejob.planservice.dto.PlanChangePageDto;
+import com.remotejob.planservice.dto.PlanPageDto;
 import com.remotejob.planservice.dto.ResponseAPI;
 import com.remotejob.planservice.dto.PlanPatchDto;
 import com.remotejob.planservice.entity.Plan;
 import com.remotejob.planservice.mapper.PlanMapper;
+import com.remotejob.planservice.repository.PlanExportFilter;
+import com.remotejob.planservice.repository.PlanSummaryView;
+import com.remotejob.planservice.service.PlanChangePage;
+import com.remotejob.planservice.service.PlanExportService;
+import com.remotejob.planservice.service.PlanPage;
 import com.remotejob.planservice.service.PlanService;
+import com.remotejob.planservice.stream.PlanEventStream;
+import com.remotejob.planservice.util.PlanETags;
+import com.remotejob.planservice.util.PlanFields;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -15,12 +33,35 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Rest controller to manage job-related operations.
@@ -37,45 +78,289 @@ public class PlanController {
      */
     private final PlanService planService;
     private final PlanMapper planMapper;
+    private final ObjectMapper objectMapper;
+    private final PlanExportService planExportService;
+    private final PlanEventStream planEventStream;
+    private final int maxBatchKeys;
+    private final int maxBatchRows;
 
-    public PlanController(PlanService planService, PlanMapper planMapper) {
+    public PlanController(PlanService planService, PlanMapper planMapper, ObjectMapper objectMapper,
+                          PlanExportService planExportService, PlanEventStream planEventStream,
+                          @Value("${app.plan.batch.max-keys:500}") int maxBatchKeys,
+                          @Value("${app.plan.batch.max-rows:2000}") int maxBatchRows) {
         this.planService = planService;
         this.planMapper = planMapper;
+        this.objectMapper = objectMapper;
+        this.planExportService = planExportService;
+        this.planEventStream = planEventStream;
+        this.maxBatchKeys = maxBatchKeys;
+        this.maxBatchRows = maxBatchRows;
+    }
+
+    /**
+     * Retrieves a keyset page of all plans.
+     *
+     * @param limit  The maximum number of plans to return.
+     * @param cursor The opaque cursor returned by the previous page, omitted for the first page.
+     * @return A ResponseAPI object containing the page of plans and the cursor to the next page.
+     */
+    @Operation(summary = "Get a page of all plans")
+    @ApiResponse(responseCode = "200", description = "Page of plans",
+            content = @Content(schema = @Schema(implementation = PlanPageDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping(params = "!stream")
+    public ResponseAPI<PlanPageDto> getPage(
+            @Parameter(description = "Maximum number of plans to return") @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+        return new ResponseAPI<>("Success", toPageDto(() -> this.planService.getPage(limit, cursor)));
+    }
+
+    /**
+     * Retrieves the plan changes after a cursor, for consumers replicating plans incrementally.
+     * Inserted and updated plans are returned with their current state, deleted plans as tombstones.
+     * Pass the returned cursor as {@code since} on the next call; when {@code hasMore} is false the
+     * consumer is up to date and should poll again later with the same cursor.
+     *
+     * @param since The opaque cursor returned by the previous call, omitted to read from the beginning.
+     * @param limit The maximum number of changes to return.
+     * @return A ResponseAPI object containing the changes and the cursor to the following ones.
+     */
+    @Operation(summary = "Get the plan changes after a cursor")
+    @ApiResponse(responseCode = "200", description = "Batch of plan changes",
+            content = @Content(schema = @Schema(implementation = PlanChangePageDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping("/changes")
+    public ResponseAPI<PlanChangePageDto> getChanges(
+            @Parameter(description = "Opaque cursor from the previous call") @RequestParam(value = "since", required = false) String since,
+            @Parameter(description = "Maximum number of changes to return") @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PlanChangePage page;
+        try {
+            page = this.planService.getChanges(limit, since);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        List<PlanChangeDto> changes = page.changes().stream()
+                .map(change -> change.isDeleted()
+                        ? new PlanChangeDto("DELETED", change.planId(), null, change.deletedAt())
+                        : new PlanChangeDto("UPSERTED", change.planId(), planMapper.toDto(change.plan()), null))
+                .toList();
+        return new ResponseAPI<>("Success", new PlanChangePageDto(changes, page.nextCursor(), page.hasMore()));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the changes of the plans of a user, of a job, or of both,
+     * so clients waiting for a plan to activate do not have to poll. Every committed change is sent
+     * as an {@code UPSERTED} or {@code DELETED} event carrying a PlanChange; a keep-alive comment is
+     * sent while the stream is idle. Subscribe before reading the current plans to not miss a change.
+     *
+     * @param userId Only stream the plans of this user.
+     * @param jobId  Only stream the plans of this job.
+     * @return The event stream.
+     */
+    @Operation(summary = "Stream plan changes by user ID or job ID")
+    @ApiResponse(responseCode = "200", description = "Server-Sent Events stream of plan changes",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = PlanChangeDto.class)))
+    @ApiResponse(responseCode = "400", description = "Neither userId nor jobId given")
+    @ApiResponse(responseCode = "503", description = "Too many open streams")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @Parameter(description = "User whose plans to stream") @RequestParam(value = "userId", required = false) String userId,
+            @Parameter(description = "Job whose plans to stream") @RequestParam(value = "jobId", required = false) String jobId) {
+        try {
+            return this.planEventStream.subscribe(userId, jobId);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Streams all plans using a server-side database cursor.
+     *
+     * @return A streamed ResponseAPI object containing all plans.
+     */
+    @Operation(summary = "Stream all plans")
+    @ApiResponse(responseCode = "200", description = "All plans, streamed",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return streamPlans(this.planService::streamAll);
+    }
+
+    /**
+     * Exports plans as newline-delimited JSON, streamed straight from a database cursor.
+     *
+     * @param status      Only export plans with this status.
+     * @param isActive    Only export active or inactive plans.
+     * @param expiresFrom Only export plans expiring at or after this instant.
+     * @param expiresTo   Only export plans expiring before this instant.
+     * @param gzip        Whether to gzip the response body.
+     * @return A streamed NDJSON body with one plan per line.
+     */
+    @Operation(summary = "Export plans as NDJSON")
+    @ApiResponse(responseCode = "200", description = "One plan per line",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PlanDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Plan status", example = "PAID") @RequestParam(value = "status", required = false) String status,
+            @Parameter(description = "Active flag") @RequestParam(value = "isActive", required = false) Boolean isActive,
+            @Parameter(description = "Inclusive lower bound of expiresAt", example = "2025-01-01T00:00:00Z")
+            @RequestParam(value = "expiresFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant expiresFrom,
+            @Parameter(description = "Exclusive upper bound of expiresAt", example = "2026-01-01T00:00:00Z")
+            @RequestParam(value = "expiresTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant expiresTo,
+            @Parameter(description = "Gzip the response body") @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        PlanExportFilter filter = new PlanExportFilter(status, isActive, expiresFrom, expiresTo);
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                planExportService.export(filter, gzipStream);
+                gzipStream.finish();
+            } else {
+                planExportService.export(filter, outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     /**
      * Retrieves a plan by its unique identifier.
+     * Honors If-None-Match / If-Modified-Since against the plan's updatedAt, answering 304
+     * without mapping or serializing the plan.
      *
-     * @param id The UUID of the plan to retrieve.
+     * @param id         The UUID of the plan to retrieve.
+     * @param webRequest The current request, used to evaluate the conditional headers.
      * @return A ResponseAPI object containing an Optional with the Job if found,
      * or an empty Optional if not found.
      */
     @Operation(summary = "Get plan by ID")
     @ApiResponse(responseCode = "200", description = "Plan found",
             content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "304", description = "Plan not modified")
     @GetMapping("/{id}")
-    public ResponseAPI<Optional<PlanDto>> getById(@PathVariable(value = "id") UUID id) {
+    public ResponseAPI<Optional<PlanDto>> getById(@PathVariable(value = "id") UUID id, WebRequest webRequest) {
         Optional<Plan> plan = this.planService.getById(id);
+        if (plan.isPresent() && webRequest.checkNotModified(PlanETags.forPlan(plan.get()), lastModified(plan.get()))) {
+            return null;
+        }
         return new ResponseAPI<>("Success", plan.map(planMapper::toDto));
     }
 
+    /**
+     * Retrieves the requested fields of a plan by its unique identifier.
+     * Unrequested columns are not selected from the database.
+     *
+     * @param id     The UUID of the plan to retrieve.
+     * @param fields Comma-separated names of the fields to return.
+     * @return A ResponseAPI object containing an Optional with the selected fields of the plan if found,
+     * or an empty Optional if not found.
+     */
+    @Operation(summary = "Get selected fields of a plan by ID")
+    @ApiResponse(responseCode = "200", description = "Plan found",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseAPI<Optional<ObjectNode>> getFieldsById(
+            @PathVariable(value = "id") UUID id,
+            @Parameter(description = "Comma-separated fields to return, e.g. id,status,isActive,expiresAt,jobId")
+            @RequestParam(value = "fields") String fields) {
+        PlanFields selection = parseFields(fields);
+        return new ResponseAPI<>("Success", this.planService.getById(id, selection).map(plan -> selectFields(plan, selection)));
+    }
+
     /**
      * Retrieves a list of plans associated with a specific user ID.
+     * Honors If-None-Match against a tag computed from the loaded plans (ids, order and updatedAt),
+     * so a replaced plan changes the tag even when the count and latest modification do not.
      *
-     * @param userId The ID of the user whose plans are to be retrieved.
+     * @param userId     The ID of the user whose plans are to be retrieved.
+     * @param webRequest The current request, used to evaluate the conditional headers.
      * @return A ResponseAPI object containing a list of plans associated with the specified user ID.
      */
     @Operation(summary = "Get plans by user ID")
     @ApiResponse(responseCode = "200", description = "Plans for user",
             content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "304", description = "Plans not modified")
     @GetMapping("/user/{userId}")
-    public ResponseAPI<List<PlanDto>> getByUserId(@PathVariable(value = "userId") String userId) {
-        List<PlanDto> result = this.planService.getByUserId(userId).stream()
+    public ResponseAPI<List<PlanDto>> getByUserId(@PathVariable(value = "userId") String userId, WebRequest webRequest) {
+        List<Plan> plans = this.planService.getByUserId(userId);
+        if (webRequest.checkNotModified(PlanETags.forPlans(plans))) {
+            return null;
+        }
+        List<PlanDto> result = plans.stream()
                 .map(planMapper::toDto)
                 .toList();
         return new ResponseAPI<>("Success", result);
     }
 
+    /**
+     * Retrieves the requested fields of the plans associated with a specific user ID.
+     * Unrequested columns are not selected from the database.
+     *
+     * @param userId The ID of the user whose plans are to be retrieved.
+     * @param fields Comma-separated names of the fields to return.
+     * @return A ResponseAPI object containing the selected fields of the plans associated with the specified user ID.
+     */
+    @Operation(summary = "Get selected fields of plans by user ID")
+    @ApiResponse(responseCode = "200", description = "Plans for user",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    @GetMapping(value = "/user/{userId}", params = {"fields", "!limit", "!stream"})
+    public ResponseAPI<List<ObjectNode>> getFieldsByUserId(
+            @PathVariable(value = "userId") String userId,
+            @Parameter(description = "Comma-separated fields to return, e.g. id,status,isActive,expiresAt,jobId")
+            @RequestParam(value = "fields") String fields) {
+        PlanFields selection = parseFields(fields);
+        Class<? extends PlanSummaryView> viewType = selection.viewType();
+        List<?> plans = viewType != null
+                ? this.planService.getByUserId(userId, viewType)
+                : this.planService.getByUserId(userId);
+        List<ObjectNode> result = plans.stream()
+                .map(plan -> selectFields(plan, selection))
+                .toList();
+        return new ResponseAPI<>("Success", result);
+    }
+
+    /**
+     * Retrieves a keyset page of the plans associated with a specific user ID.
+     *
+     * @param userId The ID of the user whose plans are to be retrieved.
+     * @param limit  The maximum number of plans to return.
+     * @param cursor The opaque cursor returned by the previous page, omitted for the first page.
+     * @return A ResponseAPI object containing the page of plans and the cursor to the next page.
+     */
+    @Operation(summary = "Get a page of plans by user ID")
+    @ApiResponse(responseCode = "200", description = "Page of plans for user",
+            content = @Content(schema = @Schema(implementation = PlanPageDto.class)))
+    @GetMapping(value = "/user/{userId}", params = {"limit", "!stream"})
+    public ResponseAPI<PlanPageDto> getPageByUserId(
+            @PathVariable(value = "userId") String userId,
+            @Parameter(description = "Maximum number of plans to return") @RequestParam(value = "limit") int limit,
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+        return new ResponseAPI<>("Success", toPageDto(() -> this.planService.getPageByUserId(userId, limit, cursor)));
+    }
+
+    /**
+     * Streams the plans associated with a specific user ID using a server-side database cursor.
+     *
+     * @param userId The ID of the user whose plans are to be retrieved.
+     * @return A streamed ResponseAPI object containing the plans of the user.
+     */
+    @Operation(summary = "Stream plans by user ID")
+    @ApiResponse(responseCode = "200", description = "Plans for user, streamed",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping(value = "/user/{userId}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamByUserId(@PathVariable(value = "userId") String userId) {
+        return streamPlans(consumer -> this.planService.streamByUserId(userId, consumer));
+    }
+
     /**
      * Retrieves a list of plans associated with a specific job ID.
      *
@@ -93,23 +378,204 @@ public class PlanController {
         return new ResponseAPI<>("Success", result);
     }
 
+    /**
+     * Retrieves the requested fields of the plans associated with a specific job ID.
+     * Unrequested columns are not selected from the database.
+     *
+     * @param jobId  The ID of the job whose plans are to be retrieved.
+     * @param fields Comma-separated names of the fields to return.
+     * @return A ResponseAPI object containing the selected fields of the plans associated with the specified job ID.
+     */
+    @Operation(summary = "Get selected fields of plans by job ID")
+    @ApiResponse(responseCode = "200", description = "Plans for job",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    @GetMapping(value = "/job/{jobId}", params = {"fields", "!limit", "!stream"})
+    public ResponseAPI<List<ObjectNode>> getFieldsByJobId(
+            @PathVariable(value = "jobId") String jobId,
+            @Parameter(description = "Comma-separated fields to return, e.g. id,status,isActive,expiresAt,jobId")
+            @RequestParam(value = "fields") String fields) {
+        PlanFields selection = parseFields(fields);
+        Class<? extends PlanSummaryView> viewType = selection.viewType();
+        List<?> plans = viewType != null
+                ? this.planService.getByJobId(jobId, viewType)
+                : this.planService.getByJobId(jobId);
+        List<ObjectNode> result = plans.stream()
+                .map(plan -> selectFields(plan, selection))
+                .toList();
+        return new ResponseAPI<>("Success", result);
+    }
+
+    /**
+     * Retrieves a keyset page of the plans associated with a specific job ID.
+     *
+     * @param jobId  The ID of the job whose plans are to be retrieved.
+     * @param limit  The maximum number of plans to return.
+     * @param cursor The opaque cursor returned by the previous page, omitted for the first page.
+     * @return A ResponseAPI object containing the page of plans and the cursor to the next page.
+     */
+    @Operation(summary = "Get a page of plans by job ID")
+    @ApiResponse(responseCode = "200", description = "Page of plans for job",
+            content = @Content(schema = @Schema(implementation = PlanPageDto.class)))
+    @GetMapping(value = "/job/{jobId}", params = {"limit", "!stream"})
+    public ResponseAPI<PlanPageDto> getPageByJobId(
+            @PathVariable(value = "jobId") String jobId,
+            @Parameter(description = "Maximum number of plans to return") @RequestParam(value = "limit") int limit,
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+        return new ResponseAPI<>("Success", toPageDto(() -> this.planService.getPageByJobId(jobId, limit, cursor)));
+    }
+
+    /**
+     * Streams the plans associated with a specific job ID using a server-side database cursor.
+     *
+     * @param jobId The ID of the job whose plans are to be retrieved.
+     * @return A streamed ResponseAPI object containing the plans of the job.
+     */
+    @Operation(summary = "Stream plans by job ID")
+    @ApiResponse(responseCode = "200", description = "Plans for job, streamed",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @PreAuthorize("hasAuthority('ROLE_USER')")
+    @GetMapping(value = "/job/{jobId}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamByJobId(@PathVariable(value = "jobId") String jobId) {
+        return streamPlans(consumer -> this.planService.streamByJobId(jobId, consumer));
+    }
+
     /**
      * Retrieves all active sticky plans that haven't expired.
-     * Sticky plans are plans with types 5 (24h), 6 (1 week), or 7 (1 month).
+     * Sticky plans are plans with a sticky type: 5 (24h), 6 (1 week) or 7 (1 month).
+     * Honors If-None-Match against a tag computed from the in-memory index entries.
      *
+     * @param webRequest The current request, used to evaluate the conditional headers.
      * @return A ResponseAPI object containing a list of active sticky plans.
      */
     @Operation(summary = "Get active sticky plans")
     @ApiResponse(responseCode = "200", description = "Active sticky plans",
             content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "304", description = "Active sticky plans not modified")
     @GetMapping("/active-sticky")
-    public ResponseAPI<List<PlanDto>> getActiveStickyPlans() {
-        List<PlanDto> result = this.planService.getActiveStickyPlans().stream()
+    public ResponseAPI<List<PlanDto>> getActiveStickyPlans(WebRequest webRequest) {
+        List<Plan> plans = this.planService.getActiveStickyPlans();
+        if (webRequest.checkNotModified(PlanETags.forPlans(plans))) {
+            return null;
+        }
+        List<PlanDto> result = plans.stream()
                 .map(planMapper::toDto)
                 .toList();
         return new ResponseAPI<>("Success", result);
     }
 
+    /**
+     * Retrieves the requested fields of the active sticky plans.
+     *
+     * @param fields Comma-separated names of the fields to return.
+     * @return A ResponseAPI object containing the selected fields of the active sticky plans.
+     */
+    @Operation(summary = "Get selected fields of active sticky plans")
+    @ApiResponse(responseCode = "200", description = "Active sticky plans",
+            content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    @GetMapping(value = "/active-sticky", params = "fields")
+    public ResponseAPI<List<ObjectNode>> getFieldsOfActiveStickyPlans(
+            @Parameter(description = "Comma-separated fields to return, e.g. id,status,isActive,expiresAt,jobId")
+            @RequestParam(value = "fields") String fields) {
+        PlanFields selection = parseFields(fields);
+        List<ObjectNode> result = this.planService.getActiveStickyPlans().stream()
+                .map(plan -> selectFields(plan, selection))
+                .toList();
+        return new ResponseAPI<>("Success", result);
+    }
+
+    /**
+     * Retrieves the job board decoration (badge features of the highest-tier active plan) of many jobs at once.
+     *
+     * @param jobIds The IDs of the jobs to decorate.
+     * @return A ResponseAPI object containing the decorations keyed by job ID; jobs without an active plan are omitted.
+     */
+    @Operation(summary = "Get job board decorations by job IDs")
+    @ApiResponse(responseCode = "200", description = "Decorations keyed by job ID",
+            content = @Content(schema = @Schema(implementation = JobDecorationDto.class)))
+    @ApiResponse(responseCode = "400", description = "Too many job IDs")
+    @GetMapping("/job-decorations")
+    public ResponseAPI<Map<String, JobDecorationDto>> getJobDecorations(@RequestParam(value = "jobIds") List<String> jobIds) {
+        Set<String> distinctJobIds = distinct(jobIds);
+        if (distinctJobIds.size() > maxBatchKeys) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Job decoration lookup accepts at most " + maxBatchKeys + " job IDs, got " + distinctJobIds.size());
+        }
+        Map<String, JobDecorationDto> result = new LinkedHashMap<>();
+        this.planService.getJobDecorations(distinctJobIds)
+                .forEach((jobId, decoration) -> result.put(jobId, planMapper.toDecorationDto(decoration)));
+        return new ResponseAPI<>("Success", result);
+    }
+
+    /**
+     * Resolves plans by ids, invoice ids and user ids in a single call, with one query per key type.
+     * The keys may match at most {@code app.plan.batch.max-rows} plans in total; no more than one
+     * plan over that cap is loaded before the lookup is refused.
+     *
+     * @param request The keys to resolve.
+     * @return A ResponseAPI object containing the plans keyed by the requested keys and the keys that were not found.
+     */
+    @Operation(summary = "Batch lookup of plans by IDs, invoice IDs and user IDs")
+    @ApiResponse(responseCode = "200", description = "Plans keyed by the requested keys",
+            content = @Content(schema = @Schema(implementation = PlanBatchResponseDto.class)))
+    @ApiResponse(responseCode = "400", description = "Too many keys in the batch, or too many plans matched")
+    @PostMapping("/batch")
+    public ResponseAPI<PlanBatchResponseDto> getBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = PlanBatchRequestDto.class),
+                            examples = @ExampleObject(
+                                    name = "BatchLookupExample",
+                                    summary = "Batch lookup example",
+                                    value = "{\n  \"ids\": [\"8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab\"],\n  \"invoiceIds\": [\"f54a0b7c-12d3-4e5f-a6b7-8c9d0e1f2a3b\"],\n  \"userIds\": [\"user-12345\"]\n}"
+                            )
+                    )
+            ) @org.springframework.web.bind.annotation.RequestBody PlanBatchRequestDto request) {
+        Set<UUID> ids = distinct(request.ids);
+        Set<UUID> invoiceIds = distinct(request.invoiceIds);
+        Set<String> userIds = distinct(request.userIds);
+        int keyCount = ids.size() + invoiceIds.size() + userIds.size();
+        if (keyCount > maxBatchKeys) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch lookup accepts at most " + maxBatchKeys + " keys, got " + keyCount);
+        }
+
+        PlanBatchResponseDto response = new PlanBatchResponseDto();
+        response.missing = new PlanBatchRequestDto();
+
+        Map<UUID, Plan> plansById = ids.isEmpty() ? Map.of() : this.planService.getByIds(ids);
+        response.byId = new LinkedHashMap<>();
+        response.missing.ids = new ArrayList<>();
+        for (UUID id : ids) {
+            Plan plan = plansById.get(id);
+            if (plan == null) {
+                response.missing.ids.add(id);
+            } else {
+                response.byId.put(id, planMapper.toDto(plan));
+            }
+        }
+
+        int rowBudget = checkBatchRows(plansById.size(), maxBatchRows);
+
+        Map<UUID, List<Plan>> plansByInvoiceId = invoiceIds.isEmpty() ? Map.of()
+                : this.planService.getByInvoiceIds(invoiceIds, rowBudget + 1);
+        rowBudget = checkBatchRows(countRows(plansByInvoiceId), rowBudget);
+        response.byInvoiceId = new LinkedHashMap<>();
+        response.missing.invoiceIds = new ArrayList<>();
+        collectGrouped(invoiceIds, plansByInvoiceId, response.byInvoiceId, response.missing.invoiceIds);
+
+        Map<String, List<Plan>> plansByUserId = userIds.isEmpty() ? Map.of()
+                : this.planService.getByUserIds(userIds, rowBudget + 1);
+        checkBatchRows(countRows(plansByUserId), rowBudget);
+        response.byUserId = new LinkedHashMap<>();
+        response.missing.userIds = new ArrayList<>();
+        collectGrouped(userIds, plansByUserId, response.byUserId, response.missing.userIds);
+
+        return new ResponseAPI<>("Success", response);
+    }
+
     /**
      * Creates a new plan or updates an existing one.
      *
@@ -183,31 +649,175 @@ public class PlanController {
 
     /**
      * Partially updates fields of an existing plan. Only non-null fields in the payload are applied.
+     * The items and metadata documents can be changed in place with a JSON merge patch and updates
+     * of single JSON Pointer paths, applied by the database in the same statement.
+     * With {@code If-Match} carrying the entity tag of the plan (as returned by GET or a previous
+     * PATCH) the update only applies if the plan was not modified since, otherwise 412 is answered.
      *
-     * @param id   The UUID of the plan to update.
-     * @param patch The fields to update.
-     * @return A ResponseAPI containing the updated plan, or null if not found.
+     * @param id      The UUID of the plan to update.
+     * @param ifMatch The entity tag the plan must still have, or {@code *} for any existing plan.
+     * @param patch   The fields to update.
+     * @return A ResponseAPI containing the updated plan, or null if not found, with the new entity tag.
      */
     @Operation(summary = "Partially update a plan")
     @ApiResponse(responseCode = "200", description = "Plan patched",
             content = @Content(schema = @Schema(implementation = PlanDto.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid merge patch or path")
+    @ApiResponse(responseCode = "412", description = "Plan modified since the If-Match entity tag, or not found")
     @PreAuthorize("hasAuthority('ROLE_USER')")
     @PatchMapping("/{id}")
-    public ResponseAPI<PlanDto> patch(
+    public ResponseEntity<ResponseAPI<PlanDto>> patch(
             @PathVariable("id") UUID id,
+            @Parameter(description = "Entity tag of the plan to update, for a conditional update")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     required = true,
                     content = @Content(
                             schema = @Schema(implementation = PlanPatchDto.class),
-                            examples = @ExampleObject(
+                            examples = {@ExampleObject(
                                     name = "PatchPlanExample",
                                     summary = "Quick patch example",
                                     value = "{\n  \"description\": \"Patched description\",\n  \"isActive\": false,\n  \"status\": \"PAID\"\n}"
-                            )
+                            ),
+                            @ExampleObject(
+                                    name = "MergePatchMetadataExample",
+                                    summary = "Change one metadata flag and one items value in place",
+                                    value = "{\n  \"metadataMergePatch\": {\"highlightYellow\": true},\n  \"itemsPaths\": {\"/price/amount\": 149.0}\n}"
+                            )}
                     )
             ) @org.springframework.web.bind.annotation.RequestBody PlanPatchDto patch
     ) {
-        Optional<Plan> updated = planService.partialUpdate(id, patch);
-        return new ResponseAPI<>("Success", updated.map(planMapper::toDto).orElse(null));
+        Long expectedVersion = null;
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            try {
+                expectedVersion = PlanETags.versionOf(ifMatch);
+            } catch (IllegalArgumentException ex) {
+                // A tag this API never issued cannot match the current plan
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), ex);
+            }
+        }
+        Optional<Plan> updated;
+        try {
+            updated = planService.partialUpdate(id, patch, expectedVersion);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        if (updated.isEmpty()) {
+            if (ifMatch != null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Plan was modified or does not exist");
+            }
+            return ResponseEntity.ok(new ResponseAPI<>("Success", null));
+        }
+        return ResponseEntity.ok()
+                .eTag(PlanETags.forPlan(updated.get()))
+                .body(new ResponseAPI<>("Success", planMapper.toDto(updated.get())));
+    }
+
+    // Last-Modified value of a plan in epoch milliseconds, -1 when unknown
+    private static long lastModified(Plan plan) {
+        return plan.getUpdatedAt() != null ? plan.getUpdatedAt().toEpochMilli() : -1L;
+    }
+
+    private PlanFields parseFields(String fields) {
+        try {
+            return PlanFields.parse(fields);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Renders only the requested fields of a plan entity or projection. JSONB payloads of an
+     * entity are left out before serialization unless requested.
+     */
+    private ObjectNode selectFields(Object plan, PlanFields fields) {
+        Object source = plan;
+        if (plan instanceof Plan entity) {
+            PlanDto dto = planMapper.toDto(entity);
+            if (!fields.includes("items")) {
+                dto.items = null;
+            }
+            if (!fields.includes("metadata")) {
+                dto.metadata = null;
+            }
+            source = dto;
+        }
+        ObjectNode node = objectMapper.valueToTree(source);
+        node.retain(fields.names());
+        return node;
+    }
+
+    /**
+     * Maps a service page into its DTO, translating a malformed cursor into a 400 response.
+     */
+    private PlanPageDto toPageDto(Supplier<PlanPage> pageSupplier) {
+        PlanPage page;
+        try {
+            page = pageSupplier.get();
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        List<PlanDto> items = page.plans().stream()
+                .map(planMapper::toDto)
+                .toList();
+        return new PlanPageDto(items, page.nextCursor());
+    }
+
+    /**
+     * Writes plans as a ResponseAPI JSON document while they are read from the database,
+     * so the response never holds more than one plan in memory.
+     *
+     * @param source streams plans into the given consumer
+     * @return a streaming response with the same shape as the list endpoints
+     */
+    private ResponseEntity<StreamingResponseBody> streamPlans(Function<Consumer<Plan>, Long> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeStringField("message", "Success");
+                generator.writeArrayFieldStart("data");
+                source.apply(plan -> {
+                    try {
+                        objectMapper.writeValue(generator, planMapper.toDto(plan));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private int checkBatchRows(int rows, int rowBudget) {
+        if (rows > rowBudget) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch lookup matches more than " + maxBatchRows
+                    + " plans; split the keys across requests or page the plans of a user with /user/{userId}?limit=");
+        }
+        return rowBudget - rows;
+    }
+
+    private static int countRows(Map<?, List<Plan>> plans) {
+        return plans.values().stream().mapToInt(List::size).sum();
+    }
+
+    private <K> void collectGrouped(Set<K> keys, Map<K, List<Plan>> plans, Map<K, List<PlanDto>> found, List<K> missing) {
+        for (K key : keys) {
+            List<Plan> group = plans.get(key);
+            if (group == null || group.isEmpty()) {
+                missing.add(key);
+            } else {
+                found.put(key, group.stream().map(planMapper::toDto).toList());
+            }
+        }
+    }
+
+    private static <K> Set<K> distinct(List<K> keys) {
+        Set<K> distinct = new LinkedHashSet<>();
+        if (keys != null) {
+            keys.stream().filter(Objects::nonNull).forEach(distinct::add);
+        }
+        return distinct;
     }
 }
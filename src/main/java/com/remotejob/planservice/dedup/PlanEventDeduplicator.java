@@ -0,0 +1,165 @@
+package com.remotejob.planservice.dedup;
+
+import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Recognizes {@link PlansToCreateEvent}s that were already applied, so broker redeliveries and
+ * upstream replays do not cost a plan upsert each.
+ * <p>
+ * An event is identified by a name-based UUID of its producer-assigned {@code eventId}, or of the AMQP
+ * {@code message_id} it was delivered with; two events with the same content but different ids are both
+ * applied, and events without any id are always applied. Applied keys are recorded in the
+ * {@code processed_event} table, in the transaction that applies the event, and in an in-memory
+ * {@link BloomFilter}:
+ * <ul>
+ *     <li>keys the filter has never seen are new for certain and skip the table lookup;</li>
+ *     <li>keys the filter may have seen are looked up in the table, and skipped if found there.</li>
+ * </ul>
+ * Claiming the keys in the write transaction is what makes processing exactly-once across instances;
+ * the filter only saves the lookup. Keys are kept for the configured TTL. The filter cannot forget, so
+ * two generations are kept and rotated every TTL, and the newest one is warmed from the table on startup.
+ * <p>
+ * {@code plans.dedup.checks} counts checked events by {@code result} ({@code new}, {@code duplicate},
+ * {@code false_positive}); {@code plans.dedup.bloom.fpp} is the estimated false-positive probability.
+ */
+@Slf4j
+@Component
+public class PlanEventDeduplicator {
+
+    private final ProcessedEventStore processedEventStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Duration ttl;
+    private final Counter newCounter;
+    private final Counter duplicateCounter;
+    private final Counter falsePositiveCounter;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public PlanEventDeduplicator(ProcessedEventStore processedEventStore,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.amqp.dedup.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${app.amqp.dedup.false-positive-probability:0.01}") double falsePositiveProbability,
+                                 @Value("${app.amqp.dedup.ttl:P7D}") Duration ttl) {
+        this.processedEventStore = processedEventStore;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.ttl = ttl;
+        this.current = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        this.newCounter = checks(meterRegistry, "new");
+        this.duplicateCounter = checks(meterRegistry, "duplicate");
+        this.falsePositiveCounter = checks(meterRegistry, "false_positive");
+        Gauge.builder("plans.dedup.bloom.fpp", this, dedup -> dedup.current.expectedFalsePositiveProbability())
+                .description("Estimated false-positive probability of the processed events Bloom filter")
+                .register(meterRegistry);
+        log.info("🧮 [DEDUP] Processed events filter initialized | expectedInsertions={} | fpp={} | ttl={} | bytes={}",
+                expectedInsertions, falsePositiveProbability, ttl, 2 * current.sizeInBytes());
+    }
+
+    /**
+     * @return the key identifying the event, or null if it has no id and cannot be recognized when delivered again
+     */
+    public UUID keyOf(PlansToCreateEvent event) {
+        return event.eventId == null ? null : UUID.nameUUIDFromBytes(event.eventId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the keys among {@code keys} that were already processed. Only keys the filter may have
+     * seen are looked up in the database.
+     */
+    public Set<UUID> findProcessed(Collection<UUID> keys) {
+        Set<UUID> candidates = new HashSet<>();
+        for (UUID key : keys) {
+            if (current.mightContain(key) || previous.mightContain(key)) {
+                candidates.add(key);
+            }
+        }
+        Set<UUID> processed = candidates.isEmpty() ? Set.of() : processedEventStore.findProcessed(candidates);
+        newCounter.increment(keys.size() - candidates.size());
+        duplicateCounter.increment(processed.size());
+        falsePositiveCounter.increment(candidates.size() - processed.size());
+        return processed;
+    }
+
+    /**
+     * Records the keys as processed. Must run in the transaction that applies the events.
+     *
+     * @return the keys not processed before, whose events the caller must apply
+     */
+    public Set<UUID> claim(Collection<UUID> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        Set<UUID> claimed = processedEventStore.claim(keys);
+        keys.forEach(current::put);
+        return claimed;
+    }
+
+    /**
+     * Deletes keys older than the TTL and starts a new filter generation.
+     */
+    @Scheduled(fixedDelayString = "${app.amqp.dedup.ttl:P7D}", initialDelayString = "${app.amqp.dedup.ttl:P7D}")
+    public void rotate() {
+        previous = current;
+        current = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        int deleted = processedEventStore.deleteProcessedBefore(Instant.now().minus(ttl));
+        log.info("🧮 [DEDUP] Processed events filter rotated | expiredKeys={}", deleted);
+    }
+
+    /**
+     * Deletes keys older than the TTL between rotations.
+     */
+    @Scheduled(fixedDelayString = "${app.amqp.dedup.cleanup-interval:PT1H}",
+            initialDelayString = "${app.amqp.dedup.cleanup-interval:PT1H}")
+    public void cleanup() {
+        int deleted = processedEventStore.deleteProcessedBefore(Instant.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("🧹 [DEDUP] Expired processed events deleted | count={}", deleted);
+        }
+    }
+
+    /**
+     * Loads the keys processed within the TTL into the filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Instant start = Instant.now();
+        long[] loaded = {0};
+        transactionTemplate.executeWithoutResult(tx -> processedEventStore.scan(start.minus(ttl), 10_000, key -> {
+            current.put(key);
+            loaded[0]++;
+        }));
+        log.info("🧮 [DEDUP] Processed events filter warmed up | keys={} | duration={}ms",
+                loaded[0], Duration.between(start, Instant.now()).toMillis());
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("plans.dedup.checks")
+                .description("Plan creation events checked against the processed events index")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
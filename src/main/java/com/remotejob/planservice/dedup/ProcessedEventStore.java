@@ -0,0 +1,90 @@
+package com.remotejob.planservice.dedup;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.toDb;
+
+/**
+ * JDBC access to the {@code processed_event} table: a 16 byte key and a timestamp per applied event.
+ */
+@Repository
+class ProcessedEventStore {
+
+    private static final String FIND_SQL = "SELECT event_key FROM processed_event WHERE event_key = ANY (?)";
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO processed_event (event_key, processed_at)
+            SELECT DISTINCT key, now() FROM unnest(?) AS key
+            ON CONFLICT (event_key) DO NOTHING
+            RETURNING event_key
+            """;
+
+    private static final String SCAN_SQL = "SELECT event_key FROM processed_event WHERE processed_at > ?";
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM processed_event WHERE processed_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProcessedEventStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the keys among {@code keys} that are recorded as processed
+     */
+    Set<UUID> findProcessed(Collection<UUID> keys) {
+        return queryKeys(FIND_SQL, keys);
+    }
+
+    /**
+     * Records the keys as processed in the caller's transaction.
+     *
+     * @return the keys that were not recorded yet, i.e. the events this caller is the first to apply
+     */
+    Set<UUID> claim(Collection<UUID> keys) {
+        return queryKeys(CLAIM_SQL, keys);
+    }
+
+    /**
+     * Streams the keys processed after {@code since}. Must run in a transaction for the fetch size
+     * to stream rows instead of loading them all.
+     */
+    void scan(Instant since, int fetchSize, Consumer<UUID> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, toDb(since));
+            return statement;
+        }, (ResultSet rs) -> consumer.accept(rs.getObject(1, UUID.class)));
+    }
+
+    /**
+     * @return the number of keys deleted
+     */
+    int deleteProcessedBefore(Instant cutoff) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, toDb(cutoff));
+    }
+
+    private Set<UUID> queryKeys(String sql, Collection<UUID> keys) {
+        Set<UUID> found = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("uuid", keys.toArray()));
+            return statement;
+        }, (ResultSet rs) -> {
+            found.add(rs.getObject(1, UUID.class));
+        });
+        return found;
+    }
+}
@@ -0,0 +1,33 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Schema(name = "JobDecoration", description = "Badge features of a job, taken from its highest-tier active plan")
+public class JobDecorationDto {
+    @Schema(description = "Job ID the decoration applies to", example = "job-456")
+    public String jobId;
+
+    @Schema(description = "ID of the plan the decoration comes from", example = "8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab")
+    public UUID planId;
+
+    @Schema(description = "Plan type (tier) of the plan", nullable = true, example = "7")
+    public Integer planType;
+
+    @Schema(description = "Expiration date of the plan", nullable = true, example = "2025-12-31T23:59:59Z")
+    public Instant expiresAt;
+
+    @Schema(description = "If the company logo is shown", example = "true")
+    public Boolean showLogo;
+
+    @Schema(description = "Brand color of the job card", nullable = true, example = "#FF6B6B")
+    public String brandColor;
+
+    @Schema(description = "If the job card is highlighted in yellow", example = "false")
+    public Boolean highlightYellow;
+
+    @Schema(description = "If the job is pinned on top of the board", example = "true")
+    public Boolean showOnTop;
+}
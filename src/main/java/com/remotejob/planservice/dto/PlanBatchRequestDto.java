@@ -0,0 +1,21 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+@Schema(name = "PlanBatchRequest", description = "Keys to resolve in a single batch lookup. All lists are optional.")
+public class PlanBatchRequestDto {
+    @Schema(description = "Plan IDs to resolve", nullable = true,
+            example = "[\"8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab\"]")
+    public List<UUID> ids;
+
+    @Schema(description = "Invoice IDs whose plans should be resolved", nullable = true,
+            example = "[\"f54a0b7c-12d3-4e5f-a6b7-8c9d0e1f2a3b\"]")
+    public List<UUID> invoiceIds;
+
+    @Schema(description = "User IDs whose plans should be resolved", nullable = true,
+            example = "[\"user-12345\"]")
+    public List<String> userIds;
+}
@@ -0,0 +1,22 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Schema(name = "PlanBatchResponse", description = "Plans resolved by a batch lookup, keyed by the requested keys")
+public class PlanBatchResponseDto {
+    @Schema(description = "Plans keyed by plan ID")
+    public Map<UUID, PlanDto> byId;
+
+    @Schema(description = "Plans keyed by invoice ID")
+    public Map<UUID, List<PlanDto>> byInvoiceId;
+
+    @Schema(description = "Plans keyed by user ID")
+    public Map<String, List<PlanDto>> byUserId;
+
+    @Schema(description = "Requested keys that did not match any plan")
+    public PlanBatchRequestDto missing;
+}
@@ -0,0 +1,31 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Schema(name = "PlanChange", description = "A plan that was inserted or updated, or a tombstone for a deleted plan")
+public class PlanChangeDto {
+    @Schema(description = "Kind of change", allowableValues = {"UPSERTED", "DELETED"}, example = "UPSERTED")
+    public String type;
+
+    @Schema(description = "ID of the plan that changed", example = "8b0a1d1a-1a2b-4c3d-8e9f-1234567890ab")
+    public UUID planId;
+
+    @Schema(description = "Current state of the plan, null for DELETED", nullable = true)
+    public PlanDto plan;
+
+    @Schema(description = "When the plan was deleted, null for UPSERTED", nullable = true, example = "2025-01-31T12:00:00Z")
+    public Instant deletedAt;
+
+    public PlanChangeDto() {
+    }
+
+    public PlanChangeDto(String type, UUID planId, PlanDto plan, Instant deletedAt) {
+        this.type = type;
+        this.planId = planId;
+        this.plan = plan;
+        this.deletedAt = deletedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "PlanChangePage", description = "A batch of plan changes with an opaque cursor to the following ones")
+public class PlanChangePageDto {
+    @Schema(description = "Changes in feed order; each plan appears once with its latest state")
+    public List<PlanChangeDto> changes;
+
+    @Schema(description = "Opaque cursor to pass as 'since' on the next call; returned even when there are no changes",
+            example = "OTg3NjU0fDEwMjQ")
+    public String nextCursor;
+
+    @Schema(description = "True if more changes are available right away", example = "false")
+    public boolean hasMore;
+
+    public PlanChangePageDto() {
+    }
+
+    public PlanChangePageDto(List<PlanChangeDto> changes, String nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
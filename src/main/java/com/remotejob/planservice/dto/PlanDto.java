@@ -1,6 +1,7 @@
 package com.remotejob.planservice.dto;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.remotejob.planservice.util.RawJson;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -35,7 +36,7 @@ public class PlanDto {
     @Schema(description = "The items payload for the plan",
             implementation = JsonNode.class,
             example = "{\n  \"planName\": \"basic\",\n  \"seats\": 1,\n  \"features\": [\"support\"]\n}")
-    public JsonNode items;
+    public RawJson items;
 
     @NotBlank
     @Schema(description = "Current status of this plan", example = "CREATED")
@@ -59,5 +60,10 @@ public class PlanDto {
             nullable = true,
             implementation = JsonNode.class,
             example = "{\n  \"showLogo\": true,\n  \"brandColor\": \"#FF6B6B\",\n  \"highlightYellow\": true,\n  \"highlightBrandColor\": false,\n  \"showOnTop\": true\n}")
-    public JsonNode metadata;
+    public RawJson metadata;
+
+    @Schema(description = "Optimistic lock version, incremented on every write; ignored on create and update",
+            accessMode = Schema.AccessMode.READ_ONLY,
+            example = "3")
+    public Long version;
 }
@@ -0,0 +1,24 @@
+package com.remotejob.planservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "PlanPage", description = "A page of plans with an opaque cursor to the next page")
+public class PlanPageDto {
+    @Schema(description = "Plans in this page, unlimited plans first and then by expiration date descending")
+    public List<PlanDto> items;
+
+    @Schema(description = "Opaque cursor for the next page, null when there are no more plans",
+            nullable = true,
+            example = "MTc2NzIyNTU5OS4wfDhiMGExZDFhLTFhMmItNGMzZC04ZTlmLTEyMzQ1Njc4OTBhYg")
+    public String nextCursor;
+
+    public PlanPageDto() {
+    }
+
+    public PlanPageDto(List<PlanDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
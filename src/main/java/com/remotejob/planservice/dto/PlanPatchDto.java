@@ -4,8 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.Instant;
+import java.util.Map;
 
-@Schema(name = "PlanPatch", description = "Fields to partially update in a plan. Only non-null fields will be applied.")
+@Schema(name = "PlanPatch", description = "Fields to partially update in a plan. Only non-null fields will be applied. " +
+        "items and metadata can also be changed in place, with a JSON merge patch and/or updates of single paths")
 public class PlanPatchDto {
     @Schema(description = "New description for the plan", example = "Basic subscription plan - patched", nullable = true)
     public String description;
@@ -19,6 +21,28 @@ public class PlanPatchDto {
             nullable = true)
     public JsonNode items;
 
+    @Schema(description = "RFC 7396 JSON merge patch applied to the current items: members are merged recursively, null removes a member. Cannot be combined with items",
+            implementation = JsonNode.class,
+            example = "{\n  \"seats\": 3,\n  \"limits\": {\"boosts\": 20}\n}",
+            nullable = true)
+    public JsonNode itemsMergePatch;
+
+    @Schema(description = "Values to set at JSON Pointer paths of the current items, applied after itemsMergePatch; null removes the member. Missing parents of a path are created as objects. Cannot be combined with items",
+            example = "{\n  \"/price/amount\": 149.0\n}",
+            nullable = true)
+    public Map<String, JsonNode> itemsPaths;
+
+    @Schema(description = "RFC 7396 JSON merge patch applied to the current metadata: members are merged recursively, null removes a member",
+            implementation = JsonNode.class,
+            example = "{\n  \"highlightYellow\": true\n}",
+            nullable = true)
+    public JsonNode metadataMergePatch;
+
+    @Schema(description = "Values to set at JSON Pointer paths of the current metadata, applied after metadataMergePatch; null removes the member. Missing parents of a path are created as objects",
+            example = "{\n  \"/brandColor\": \"#00AAFF\"\n}",
+            nullable = true)
+    public Map<String, JsonNode> metadataPaths;
+
     @Schema(description = "New status for this plan", example = "PAID", nullable = true)
     public String status;
 
@@ -1,12 +1,14 @@
 package com.remotejob.planservice.entity;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import com.remotejob.planservice.util.RawJson;
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 /**
@@ -37,10 +39,12 @@ public class Plan {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
 
-    @Convert(converter = JsonDynamicConverter.class)
-    @Type(JsonBinaryType.class)
+    // Kept as the raw JSONB text and parsed lazily, see RawJson
+    @Convert(converter = RawJsonConverter.class)
+    @Mutability(Immutability.class)
+    @ColumnTransformer(write = "?::jsonb")
     @Column(name = "items", columnDefinition = "jsonb", nullable = false)
-    private JsonNode items;
+    private RawJson items;
 
     @Column(name = "status", nullable = false)
     private String status;
@@ -54,8 +58,29 @@ public class Plan {
     @Column(name = "job_id", nullable = true)
     private String jobId;
 
-    @Convert(converter = JsonDynamicConverter.class)
-    @Type(JsonBinaryType.class)
+    // Kept as the raw JSONB text and parsed lazily, see RawJson
+    @Convert(converter = RawJsonConverter.class)
+    @Mutability(Immutability.class)
+    @ColumnTransformer(write = "?::jsonb")
     @Column(name = "metadata", columnDefinition = "jsonb", nullable = true)
-    private JsonNode metadata;
+    private RawJson metadata;
+
+    // Generated by the database from metadata.id; not populated on freshly saved instances
+    @Column(name = "plan_type", insertable = false, updatable = false)
+    private Integer planType;
+
+    // Truncated to the database precision so cached and reloaded instances carry the same validator
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Optimistic lock, incremented on every write; null until the plan is first saved
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.remotejob.planservice.entity;
+
+import com.remotejob.planservice.util.RawJson;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * A JPA attribute converter that keeps JSONB columns as the text returned by the driver.
+ * <p>
+ * Nothing is parsed on load; the {@link RawJson} holder parses lazily on first access.
+ * Columns mapped with this converter are written with a {@code ?::jsonb} column transformer.
+ */
+@Converter
+class RawJsonConverter implements AttributeConverter<RawJson, String> {
+
+    @Override
+    public String convertToDatabaseColumn(RawJson attribute) {
+        return attribute == null ? null : attribute.json();
+    }
+
+    @Override
+    public RawJson convertToEntityAttribute(String dbData) {
+        return RawJson.of(dbData);
+    }
+}
@@ -0,0 +1,38 @@
+package com.remotejob.planservice.event;
+
+import com.remotejob.planservice.entity.Plan;
+
+import java.util.UUID;
+
+/**
+ * Application event published by {@code PlanService} whenever a plan is written.
+ * <p>
+ * For {@link ChangeType#UPSERTED} the plan is the saved state; for
+ * {@link ChangeType#DELETED} it is the last state before deletion.
+ *
+ * @param plan the plan that changed
+ * @param type the kind of change
+ */
+public record PlanChangedEvent(Plan plan, ChangeType type) {
+
+    public enum ChangeType {
+        UPSERTED,
+        DELETED
+    }
+
+    public static PlanChangedEvent upserted(Plan plan) {
+        return new PlanChangedEvent(plan, ChangeType.UPSERTED);
+    }
+
+    public static PlanChangedEvent deleted(Plan plan) {
+        return new PlanChangedEvent(plan, ChangeType.DELETED);
+    }
+
+    public UUID planId() {
+        return plan.getId();
+    }
+
+    public boolean isDeleted() {
+        return type == ChangeType.DELETED;
+    }
+}
@@ -0,0 +1,137 @@
+package com.remotejob.planservice.expiry;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.service.PlanService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deactivates plans whose expiration date has passed, so {@code is_active} reflects expiry and
+ * expired plans leave the active indexes.
+ * <p>
+ * Each sweep deactivates expired plans in batches, each in its own transaction with a single
+ * {@code UPDATE ... WHERE id IN (SELECT ... FOR UPDATE SKIP LOCKED)}, giving them the configured
+ * status. Replicas sweeping at the same time skip each other's rows instead of waiting on them. Every
+ * deactivated plan is published as a {@link PlanChangedEvent} like any other write, so caches,
+ * indexes, the outbox and the event streams follow.
+ * <p>
+ * The sweeper adapts to the backlog: while batches come back full the batch size doubles (up to
+ * {@code max-batch-size}) and batches run back to back for at most {@code max-sweep-duration}, then the
+ * next sweep starts at the next tick. Once batches come back partial the batch size halves (down to
+ * {@code min-batch-size}) and sweeps finding nothing space out from {@code min-interval} to
+ * {@code max-interval}, but never past the next expiration date of an active plan.
+ * <p>
+ * {@code plans.expiry.deactivated} counts the deactivated plans and {@code plans.expiry.batch.size}
+ * reports the current batch size.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.plan.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class PlanExpirySweeper {
+
+    private final PlanService planService;
+    private final String expiredStatus;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration maxSweepDuration;
+    private final Counter deactivatedCounter;
+    private final AtomicInteger batchSize;
+
+    private Duration interval;
+    private Instant nextSweepAt = Instant.EPOCH;
+
+    public PlanExpirySweeper(PlanService planService,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.plan.expiry.status:EXPIRED}") String expiredStatus,
+                             @Value("${app.plan.expiry.min-batch-size:50}") int minBatchSize,
+                             @Value("${app.plan.expiry.max-batch-size:1000}") int maxBatchSize,
+                             @Value("${app.plan.expiry.min-interval:PT5S}") Duration minInterval,
+                             @Value("${app.plan.expiry.max-interval:PT5M}") Duration maxInterval,
+                             @Value("${app.plan.expiry.max-sweep-duration:PT10S}") Duration maxSweepDuration) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("app.plan.expiry batch sizes must satisfy 1 <= min-batch-size <= max-batch-size");
+        }
+        this.planService = planService;
+        this.expiredStatus = expiredStatus;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.maxSweepDuration = maxSweepDuration;
+        this.interval = minInterval;
+        this.batchSize = new AtomicInteger(minBatchSize);
+        this.deactivatedCounter = Counter.builder("plans.expiry.deactivated")
+                .description("Expired plans deactivated by the expiry sweeper")
+                .register(meterRegistry);
+        Gauge.builder("plans.expiry.batch.size", batchSize, AtomicInteger::get)
+                .description("Current batch size of the expiry sweeper")
+                .register(meterRegistry);
+        log.info("⏰ [EXPIRY] Plan expiry sweeper initialized | status={} | batchSize={}..{} | interval={}..{}",
+                expiredStatus, minBatchSize, maxBatchSize, minInterval, maxInterval);
+    }
+
+    /**
+     * Runs a sweep when one is due. Ticks every {@code min-interval}; the actual cadence is decided
+     * by the previous sweep.
+     */
+    @Scheduled(fixedDelayString = "${app.plan.expiry.min-interval:PT5S}",
+            initialDelayString = "${app.plan.expiry.min-interval:PT5S}")
+    public void sweep() {
+        Instant started = Instant.now();
+        if (started.isBefore(nextSweepAt)) {
+            return;
+        }
+        int total = 0;
+        boolean backlog;
+        try {
+            do {
+                int size = batchSize.get();
+                List<Plan> deactivated = planService.deactivateExpired(Instant.now(), expiredStatus, size);
+                total += deactivated.size();
+                deactivatedCounter.increment(deactivated.size());
+                backlog = deactivated.size() == size;
+                batchSize.set(backlog ? Math.min(size * 2, maxBatchSize) : Math.max(size / 2, minBatchSize));
+            } while (backlog && Duration.between(started, Instant.now()).compareTo(maxSweepDuration) < 0);
+        } catch (RuntimeException ex) {
+            log.error("❌ [EXPIRY] Expiry sweep failed, retrying later | deactivated={} | error={}", total, ex.getMessage(), ex);
+            nextSweepAt = Instant.now().plus(interval);
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (backlog) {
+            interval = minInterval;
+            nextSweepAt = now;
+        } else {
+            interval = total > 0 ? minInterval : min(interval.multipliedBy(2), maxInterval);
+            Instant latest = now.plus(interval);
+            nextSweepAt = planService.getNextExpiryAfter(now)
+                    .filter(nextExpiry -> nextExpiry.isBefore(latest))
+                    .orElse(latest);
+        }
+        if (total > 0) {
+            log.info("⏰ [EXPIRY] Expired plans deactivated | count={} | backlog={} | batchSize={} | duration={}ms | nextSweepAt={}",
+                    total, backlog, batchSize.get(), Duration.between(started, now).toMillis(), nextSweepAt);
+        } else {
+            log.debug("⏰ [EXPIRY] No expired plans | nextSweepAt={}", nextSweepAt);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,44 @@
+package com.remotejob.planservice.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Badge features a job is decorated with on the job board, taken from its highest-tier active plan.
+ */
+public record JobDecoration(
+        String jobId,
+        UUID planId,
+        Integer planType,
+        Instant expiresAt,
+        Boolean showLogo,
+        String brandColor,
+        Boolean highlightYellow,
+        Boolean showOnTop
+) {
+
+    static JobDecoration of(String jobId, UUID planId, Integer planType, Instant expiresAt, JsonNode metadata) {
+        return new JobDecoration(
+                jobId,
+                planId,
+                planType,
+                expiresAt,
+                booleanFlag(metadata, "showLogo"),
+                textFlag(metadata, "brandColor"),
+                booleanFlag(metadata, "highlightYellow"),
+                booleanFlag(metadata, "showOnTop")
+        );
+    }
+
+    private static Boolean booleanFlag(JsonNode metadata, String name) {
+        JsonNode node = metadata != null ? metadata.get(name) : null;
+        return node != null && node.isBoolean() ? node.booleanValue() : Boolean.FALSE;
+    }
+
+    private static String textFlag(JsonNode metadata, String name) {
+        JsonNode node = metadata != null ? metadata.get(name) : null;
+        return node != null && node.isTextual() ? node.textValue() : null;
+    }
+}
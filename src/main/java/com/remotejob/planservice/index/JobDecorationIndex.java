@@ -0,0 +1,183 @@
+package com.remotejob.planservice.index;
+
+import com.remotejob.planservice.config.StickyPlanTypes;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.repository.JobPlanView;
+import com.remotejob.planservice.repository.PlanRepository;
+import com.remotejob.planservice.util.RawJson;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-job projection backing {@code /api/v1/plan/job-decorations}.
+ * <p>
+ * For every job the index keeps the active plans linked to it, reduced to their tier,
+ * expiration date and badge flags, ranked by tier (plan type, highest first) and
+ * {@code expiresAt} (unlimited first, then latest first). A lookup returns the first
+ * candidate that has not expired, so a lower tier takes over as soon as a higher one
+ * runs out without any database access.
+ * <p>
+ * The projection is updated incrementally from {@link PlanChangedEvent}s, which cover both
+ * API writes and the invoice event handlers, and rebuilt periodically from the repository
+ * to correct any drift and drop expired candidates.
+ */
+@Slf4j
+@Component
+public class JobDecorationIndex {
+
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingInt(Candidate::tier).reversed()
+            .thenComparing(Candidate::expiresAt, Comparator.nullsFirst(Comparator.reverseOrder()));
+
+    private final PlanRepository planRepository;
+
+    private volatile Map<String, List<Candidate>> candidatesByJob = new ConcurrentHashMap<>();
+    private volatile Map<UUID, String> jobByPlan = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public JobDecorationIndex(PlanRepository planRepository) {
+        this.planRepository = planRepository;
+    }
+
+    /**
+     * Returns the decoration of each given job, in the order of the given job ids.
+     *
+     * @param jobIds the job ids to decorate
+     * @return the decorations keyed by job id; jobs without an active plan are omitted
+     */
+    public Map<String, JobDecoration> getDecorations(Collection<String> jobIds) {
+        if (!loaded) {
+            reconcile();
+        }
+        Instant now = Instant.now();
+        Map<String, List<Candidate>> current = candidatesByJob;
+        Map<String, JobDecoration> decorations = new LinkedHashMap<>();
+        for (String jobId : jobIds) {
+            List<Candidate> candidates = current.get(jobId);
+            if (candidates == null) {
+                continue;
+            }
+            for (Candidate candidate : candidates) {
+                if (candidate.expiresAt() == null || candidate.expiresAt().isAfter(now)) {
+                    decorations.put(jobId, candidate.decoration());
+                    break;
+                }
+            }
+        }
+        return decorations;
+    }
+
+    /**
+     * Applies a plan write to the projection.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        Plan plan = event.plan();
+        Candidate candidate = event.isDeleted() ? null : toCandidate(plan, Instant.now());
+        synchronized (this) {
+            // The new candidate replaces the previous one in a single compute, so lookups running
+            // outside this lock never see the job without the plan while it is being updated
+            String jobId = candidate != null ? candidate.decoration().jobId() : null;
+            String previousJobId = jobId != null ? jobByPlan.put(plan.getId(), jobId) : jobByPlan.remove(plan.getId());
+            if (jobId != null) {
+                candidatesByJob.compute(jobId, (key, existing) -> {
+                    List<Candidate> next = new ArrayList<>(existing != null ? existing.size() + 1 : 1);
+                    if (existing != null) {
+                        existing.stream()
+                                .filter(other -> !other.decoration().planId().equals(plan.getId()))
+                                .forEach(next::add);
+                    }
+                    next.add(candidate);
+                    next.sort(RANKING);
+                    return List.copyOf(next);
+                });
+            }
+            if (previousJobId != null && !previousJobId.equals(jobId)) {
+                removeCandidate(previousJobId, plan.getId());
+            }
+        }
+        log.debug("🏷️  [JOB-DECORATION] Plan applied | planId={} | change={} | jobId={}",
+                plan.getId(), event.type(), candidate != null ? candidate.decoration().jobId() : "NONE");
+    }
+
+    /**
+     * Rebuilds the projection from the repository to correct any drift from missed events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.plan.job-decoration.reconcile-interval:PT5M}",
+            initialDelayString = "${app.plan.job-decoration.reconcile-interval:PT5M}")
+    public synchronized void reconcile() {
+        Instant now = Instant.now();
+        List<JobPlanView> plans = planRepository.findActiveJobPlans(now);
+        Map<String, List<Candidate>> grouped = new HashMap<>();
+        Map<UUID, String> jobs = new ConcurrentHashMap<>();
+        for (JobPlanView plan : plans) {
+            Integer planType = plan.getPlanType() != null
+                    ? plan.getPlanType()
+                    : StickyPlanTypes.planTypeOf(RawJson.toNode(plan.getMetadata()));
+            Candidate candidate = new Candidate(
+                    JobDecoration.of(plan.getJobId(), plan.getId(), planType, plan.getExpiresAt(), RawJson.toNode(plan.getMetadata())));
+            grouped.computeIfAbsent(plan.getJobId(), key -> new ArrayList<>()).add(candidate);
+            jobs.put(plan.getId(), plan.getJobId());
+        }
+        Map<String, List<Candidate>> next = new ConcurrentHashMap<>(grouped.size());
+        grouped.forEach((jobId, candidates) -> {
+            candidates.sort(RANKING);
+            next.put(jobId, List.copyOf(candidates));
+        });
+        int previousSize = candidatesByJob.size();
+        candidatesByJob = next;
+        jobByPlan = jobs;
+        loaded = true;
+        log.info("🔁 [JOB-DECORATION] Reconciled with repository | jobsBefore={} | jobsAfter={} | plans={}",
+                previousSize, next.size(), plans.size());
+    }
+
+    private void removeCandidate(String jobId, UUID planId) {
+        candidatesByJob.computeIfPresent(jobId, (key, existing) -> {
+            List<Candidate> next = existing.stream()
+                    .filter(candidate -> !candidate.decoration().planId().equals(planId))
+                    .toList();
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    private Candidate toCandidate(Plan plan, Instant now) {
+        boolean qualifies = Boolean.TRUE.equals(plan.getIsActive())
+                && plan.getJobId() != null
+                && (plan.getExpiresAt() == null || plan.getExpiresAt().isAfter(now));
+        if (!qualifies) {
+            return null;
+        }
+        Integer planType = plan.getPlanType() != null
+                ? plan.getPlanType()
+                : StickyPlanTypes.planTypeOf(RawJson.toNode(plan.getMetadata()));
+        return new Candidate(JobDecoration.of(plan.getJobId(), plan.getId(), planType, plan.getExpiresAt(), RawJson.toNode(plan.getMetadata())));
+    }
+
+    private record Candidate(JobDecoration decoration) {
+        int tier() {
+            return decoration.planType() != null ? decoration.planType() : 0;
+        }
+
+        Instant expiresAt() {
+            return decoration.expiresAt();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.remotejob.planservice.index;
+
+import com.remotejob.planservice.config.StickyPlanTypes;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.repository.PlanRepository;
+import com.remotejob.planservice.util.RawJson;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * In-memory ranked index of active sticky plans backing {@code /api/v1/plan/active-sticky}.
+ * <p>
+ * The index is an immutable snapshot ordered by tier (plan type, highest first) and
+ * {@code expiresAt} (latest first). Reads only dereference the current snapshot and never
+ * touch the database; writes build a new snapshot under a lock (copy-on-write).
+ * <p>
+ * The snapshot is updated incrementally from {@link PlanChangedEvent}s, entries are
+ * filtered out on read as soon as they expire and purged at the next expiry instant,
+ * and a periodic reconciliation against the repository corrects any drift.
+ */
+@Slf4j
+@Component
+public class StickyPlanIndex {
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt(Entry::tier).reversed()
+            .thenComparing(Entry::expiresAt, Comparator.reverseOrder());
+
+    private final PlanRepository planRepository;
+    private final StickyPlanTypes stickyPlanTypes;
+    private final TaskScheduler taskScheduler;
+
+    private volatile List<Entry> snapshot = List.of();
+    private volatile boolean loaded = false;
+    private ScheduledFuture<?> nextPurge;
+
+    public StickyPlanIndex(PlanRepository planRepository, StickyPlanTypes stickyPlanTypes, TaskScheduler taskScheduler) {
+        this.planRepository = planRepository;
+        this.stickyPlanTypes = stickyPlanTypes;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Returns the active sticky plans, ranked by tier and expiration date.
+     *
+     * @return an immutable list of plans that have not expired at the time of the call
+     */
+    public List<Plan> getActive() {
+        if (!loaded) {
+            reconcile();
+        }
+        Instant now = Instant.now();
+        List<Entry> current = snapshot;
+        List<Plan> plans = new ArrayList<>(current.size());
+        for (Entry entry : current) {
+            if (entry.expiresAt().isAfter(now)) {
+                plans.add(entry.plan());
+            }
+        }
+        return List.copyOf(plans);
+    }
+
+    /**
+     * Applies a plan write to the index.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        Plan plan = event.plan();
+        Entry entry = event.isDeleted() ? null : toEntry(plan, Instant.now());
+        synchronized (this) {
+            List<Entry> next = new ArrayList<>(snapshot.size() + 1);
+            for (Entry existing : snapshot) {
+                if (!existing.planId().equals(plan.getId())) {
+                    next.add(existing);
+                }
+            }
+            if (entry != null) {
+                next.add(entry);
+            }
+            replace(next);
+        }
+        log.debug("📌 [STICKY-INDEX] Plan applied | planId={} | change={} | sticky={}",
+                plan.getId(), event.type(), entry != null);
+    }
+
+    /**
+     * Reloads the index from the repository to correct any drift from missed events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.plan.sticky-index.reconcile-interval:PT1M}",
+            initialDelayString = "${app.plan.sticky-index.reconcile-interval:PT1M}")
+    public synchronized void reconcile() {
+        Instant now = Instant.now();
+        List<Plan> plans = planRepository.findActiveStickyPlans(now, stickyPlanTypes.getTypes());
+        List<Entry> next = new ArrayList<>(plans.size());
+        for (Plan plan : plans) {
+            Entry entry = toEntry(plan, now);
+            if (entry != null) {
+                next.add(entry);
+            }
+        }
+        int previousSize = snapshot.size();
+        replace(next);
+        loaded = true;
+        log.info("🔁 [STICKY-INDEX] Reconciled with repository | before={} | after={}", previousSize, next.size());
+    }
+
+    /**
+     * Drops expired entries from the snapshot and schedules the next purge.
+     */
+    synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        List<Entry> next = snapshot.stream()
+                .filter(entry -> entry.expiresAt().isAfter(now))
+                .toList();
+        int removed = snapshot.size() - next.size();
+        replace(next);
+        if (removed > 0) {
+            log.info("⏰ [STICKY-INDEX] Expired sticky plans removed | count={} | remaining={}", removed, next.size());
+        }
+    }
+
+    private void replace(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(RANKING);
+        snapshot = List.copyOf(sorted);
+        schedulePurge();
+    }
+
+    private void schedulePurge() {
+        if (nextPurge != null) {
+            nextPurge.cancel(false);
+        }
+        nextPurge = snapshot.stream()
+                .map(Entry::expiresAt)
+                .min(Comparator.naturalOrder())
+                .map(earliest -> taskScheduler.schedule(this::purgeExpired, earliest))
+                .orElse(null);
+    }
+
+    private Entry toEntry(Plan plan, Instant now) {
+        Integer planType = plan.getPlanType() != null
+                ? plan.getPlanType()
+                : StickyPlanTypes.planTypeOf(RawJson.toNode(plan.getMetadata()));
+        boolean qualifies = Boolean.TRUE.equals(plan.getIsActive())
+                && plan.getJobId() != null
+                && plan.getExpiresAt() != null
+                && plan.getExpiresAt().isAfter(now)
+                && stickyPlanTypes.isSticky(planType);
+        return qualifies ? new Entry(plan, planType, plan.getExpiresAt()) : null;
+    }
+
+    private record Entry(Plan plan, int tier, Instant expiresAt) {
+        UUID planId() {
+            return plan.getId();
+        }
+    }
+}
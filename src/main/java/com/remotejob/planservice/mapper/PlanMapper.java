@@ -1,11 +1,18 @@
 package com.remotejob.planservice.mapper;
 
+import com.remotejob.planservice.dto.JobDecorationDto;
 import com.remotejob.planservice.dto.PlanDto;
 import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.index.JobDecoration;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface PlanMapper {
     PlanDto toDto(Plan entity);
+    @Mapping(target = "planType", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Plan fromDto(PlanDto dto);
+    JobDecorationDto toDecorationDto(JobDecoration decoration);
 }
@@ -0,0 +1,198 @@
+package com.remotejob.planservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.amqp.dto.PlanChangedMessage;
+import com.remotejob.planservice.outbox.PlanOutboxStore.OutboxRow;
+import com.remotejob.planservice.util.RawJson;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the rows of the {@code plan_outbox} table to the plan changes exchange.
+ * <p>
+ * The relay runs on its own thread rather than on the shared application scheduler, since waiting
+ * for broker confirms would otherwise hold back every other scheduled task. Each tick publishes up to
+ * {@code max-batches-per-tick} batches. A batch claims up to {@code batch-size} rows in sequence order
+ * in a short transaction (see {@link PlanOutboxStore#claim}), publishes them on one channel after the
+ * commit and waits for the broker to confirm the whole batch, then deletes the rows in a second short
+ * transaction; no transaction or connection is held while waiting for the broker. A single batch is
+ * claimed at a time across instances, and since sequences of the same plan are drawn in commit order
+ * (see {@link PlanOutboxWriter}), changes of a plan are published in order. Rows are deleted by id, so
+ * a change with a lower sequence that commits after a batch was claimed is published by a later batch.
+ * If the batch is not confirmed its claim is released and the rows are published again, as they are
+ * once {@code claim-timeout} passes if the relay dies mid-batch: delivery is at least once, and
+ * consumers should ignore a change whose {@code sequence} is not newer than the last one applied for the plan.
+ * <p>
+ * Messages are routed with {@code plan.upserted} or {@code plan.deleted}. {@code plan.outbox.batch.size}
+ * records the size of every published batch, {@code plan.outbox.relay.lag} the time from commit to
+ * confirmed publication of each change, and {@code plan.outbox.oldest.age} the age of the oldest
+ * pending change at the last tick.
+ */
+@Slf4j
+@Component
+public class PlanOutboxRelay {
+
+    private final PlanOutboxStore outboxStore;
+    private final TransactionTemplate transactionTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final String exchange;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+    private final Duration claimTimeout;
+    private final int maxBatchesPerTick;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("plan-outbox-relay").daemon().factory());
+    private final DistributionSummary batchSizeSummary;
+    private final Timer relayLag;
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    public PlanOutboxRelay(PlanOutboxStore outboxStore,
+                           TransactionTemplate transactionTemplate,
+                           RabbitTemplate rabbitTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.amqp.outbox.exchange:plan.changes}") String exchange,
+                           @Value("${app.amqp.outbox.batch-size:200}") int batchSize,
+                           @Value("${app.amqp.outbox.confirm-timeout:PT5S}") Duration confirmTimeout,
+                           @Value("${app.amqp.outbox.claim-timeout:PT30S}") Duration claimTimeout,
+                           @Value("${app.amqp.outbox.max-batches-per-tick:10}") int maxBatchesPerTick,
+                           @Value("${app.amqp.outbox.poll-interval:PT0.2S}") Duration pollInterval) {
+        this.outboxStore = outboxStore;
+        this.transactionTemplate = transactionTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.exchange = exchange;
+        this.batchSize = batchSize;
+        this.confirmTimeout = confirmTimeout;
+        this.claimTimeout = claimTimeout;
+        this.maxBatchesPerTick = maxBatchesPerTick;
+        this.pollInterval = pollInterval;
+        this.batchSizeSummary = DistributionSummary.builder("plan.outbox.batch.size")
+                .description("Plan changes published per relay batch")
+                .register(meterRegistry);
+        this.relayLag = Timer.builder("plan.outbox.relay.lag")
+                .description("Time from the commit of a plan change to its confirmed publication")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("plan.outbox.oldest.age", oldestPendingMillis, AtomicLong::get)
+                .description("Age in milliseconds of the oldest unpublished plan change at the last relay tick")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        executor.scheduleWithFixedDelay(this::relay, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops relaying, letting the batch in flight finish for up to the confirm timeout.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("⚠️ [OUTBOX] Plan change relay still publishing at shutdown, pending changes are left for the next run");
+        }
+    }
+
+    /**
+     * Publishes pending changes, batch after batch, until the outbox is drained or
+     * {@code max-batches-per-tick} batches were published; what remains is published on the next tick.
+     */
+    public void relay() {
+        try {
+            Integer published;
+            int batches = 0;
+            do {
+                published = publishBatch();
+            } while (published != null && published == batchSize && ++batches < maxBatchesPerTick);
+        } catch (RuntimeException ex) {
+            log.error("❌ [OUTBOX] Plan change relay failed, batch will be retried | error={}", ex.getMessage(), ex);
+        }
+    }
+
+    private Integer publishBatch() {
+        List<OutboxRow> rows = transactionTemplate.execute(tx -> outboxStore.claim(batchSize, claimTimeout));
+        if (rows == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        oldestPendingMillis.set(rows.isEmpty() ? 0 : Duration.between(rows.get(0).createdAt(), now).toMillis());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = rows.stream().map(OutboxRow::id).toList();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                rows.forEach(row -> operations.send(exchange, routingKey(row), toMessage(row)));
+                operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            try {
+                outboxStore.release(ids);
+            } catch (RuntimeException releaseFailure) {
+                // The claim expires after claim-timeout
+                ex.addSuppressed(releaseFailure);
+            }
+            throw ex;
+        }
+        outboxStore.delete(ids);
+
+        Instant confirmedAt = Instant.now();
+        rows.forEach(row -> relayLag.record(Duration.between(row.createdAt(), confirmedAt)));
+        batchSizeSummary.record(rows.size());
+        log.debug("📤 [OUTBOX] Plan changes published | count={} | lastSequence={}", rows.size(), rows.get(rows.size() - 1).id());
+        return rows.size();
+    }
+
+    private Message toMessage(OutboxRow row) {
+        PlanChangedMessage message = new PlanChangedMessage();
+        message.sequence = row.id();
+        message.type = row.changeType();
+        message.planId = row.planId();
+        message.occurredAt = row.createdAt();
+        message.plan = RawJson.of(row.payload());
+        try {
+            return MessageBuilder.withBody(objectMapper.writeValueAsBytes(message))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                    .setMessageId(Long.toString(row.id()))
+                    .setTimestamp(Date.from(row.createdAt()))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Plan change cannot be serialized | sequence=" + row.id(), ex);
+        }
+    }
+
+    private static String routingKey(OutboxRow row) {
+        return "plan." + row.changeType().toLowerCase();
+    }
+}
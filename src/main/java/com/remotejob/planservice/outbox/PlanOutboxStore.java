@@ -0,0 +1,107 @@
+package com.remotejob.planservice.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.fromDb;
+
+/**
+ * JDBC access to the {@code plan_outbox} table: claiming batches of changes for publication,
+ * and deleting or releasing them once their publication is settled.
+ */
+@Repository
+class PlanOutboxStore {
+
+    /**
+     * Arbitrary application-wide key of the advisory lock serializing the claims of the relays.
+     */
+    private static final long RELAY_LOCK_KEY = 0x706c616e6f757462L;
+
+    private static final String LIVE_CLAIM_SQL = "SELECT EXISTS (SELECT 1 FROM plan_outbox WHERE claimed_until >= now())";
+
+    private static final String CLAIM_SQL = """
+            WITH batch AS (
+                SELECT id FROM plan_outbox
+                WHERE claimed_until IS NULL
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE plan_outbox o SET claimed_until = now() + make_interval(secs => ?)
+            FROM batch
+            WHERE o.id = batch.id
+            RETURNING o.id, o.plan_id, o.change_type, o.payload, o.created_at
+            """;
+
+    private static final String EXPIRE_CLAIMS_SQL = "UPDATE plan_outbox SET claimed_until = NULL WHERE claimed_until < now()";
+
+    private static final String DELETE_SQL = "DELETE FROM plan_outbox WHERE id = ANY (?)";
+
+    private static final String RELEASE_SQL = "UPDATE plan_outbox SET claimed_until = NULL WHERE id = ANY (?)";
+
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, rowNum) -> new OutboxRow(
+            rs.getLong("id"),
+            rs.getObject("plan_id", UUID.class),
+            rs.getString("change_type"),
+            rs.getString("payload"),
+            fromDb(rs, "created_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PlanOutboxStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims the oldest unclaimed changes for {@code claimTimeout}, in the caller's transaction.
+     * Nothing is claimed while another claim is live, so a single batch is in flight across
+     * instances and the changes of a plan are published in sequence order.
+     *
+     * @return the claimed changes in sequence order, or null if another relay has a batch in flight
+     */
+    List<OutboxRow> claim(int limit, Duration claimTimeout) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked) || Boolean.TRUE.equals(jdbcTemplate.queryForObject(LIVE_CLAIM_SQL, Boolean.class))) {
+            return null;
+        }
+        // Claims left by a relay that died mid-batch
+        jdbcTemplate.update(EXPIRE_CLAIMS_SQL);
+        List<OutboxRow> rows = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, limit, claimTimeout.toMillis() / 1000.0);
+        rows.sort(Comparator.comparingLong(OutboxRow::id));
+        return rows;
+    }
+
+    /**
+     * Deletes published changes.
+     */
+    void delete(Collection<Long> ids) {
+        updateByIds(DELETE_SQL, ids);
+    }
+
+    /**
+     * Makes changes whose publication failed claimable again.
+     */
+    void release(Collection<Long> ids) {
+        updateByIds(RELEASE_SQL, ids);
+    }
+
+    private void updateByIds(String sql, Collection<Long> ids) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+
+    record OutboxRow(long id, UUID planId, String changeType, String payload, Instant createdAt) {
+    }
+}
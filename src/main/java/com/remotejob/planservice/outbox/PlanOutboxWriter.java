@@ -0,0 +1,90 @@
+package com.remotejob.planservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.mapper.PlanMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends every {@link PlanChangedEvent} to the {@code plan_outbox} table in the transaction that
+ * wrote the plan, so a change is published by the {@link PlanOutboxRelay} if and only if it commits.
+ * <p>
+ * Pending plan writes are flushed when a change is recorded, so the transaction holds the plan's row
+ * lock before the row's sequence is drawn: concurrent writers of the same plan get increasing
+ * sequences in commit order. Rows of one transaction are inserted with a single batch right before
+ * commit. Publishing a plan change outside a transaction is a programming error and fails.
+ */
+@Slf4j
+@Component
+public class PlanOutboxWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO plan_outbox (plan_id, change_type, payload, created_at) VALUES (?, ?, ?::jsonb, clock_timestamp())";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlanMapper planMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public PlanOutboxWriter(JdbcTemplate jdbcTemplate, PlanMapper planMapper, ObjectMapper objectMapper,
+                            EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.planMapper = planMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Queues the change for insertion with the current transaction.
+     */
+    @EventListener
+    public void onPlanChanged(PlanChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalTransactionStateException("Plan changes must be written in a transaction | planId=" + event.planId());
+        }
+        entityManager.flush();
+        pendingRows().add(new Object[]{event.planId(), event.type().name(), payload(event)});
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> pendingRows() {
+        List<Object[]> rows = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (rows == null) {
+            List<Object[]> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, created);
+                    log.debug("📤 [OUTBOX] Plan changes appended | count={}", created.size());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PlanOutboxWriter.this);
+                }
+            });
+            rows = created;
+        }
+        return rows;
+    }
+
+    private String payload(PlanChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(planMapper.toDto(event.plan()));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Plan cannot be serialized for the outbox | planId=" + event.planId(), ex);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.remotejob.planservice.parking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link ParkedStatusUpdateStore} backed by a bounded Caffeine cache local to this instance.
+ * <p>
+ * Entries expire the configured TTL after they were last parked; when the size bound is reached the
+ * least valuable entries are evicted. Parked updates do not survive a restart and are not visible to
+ * other instances; use the {@code jdbc} store when several consumers share the queues.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.plan.parking.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryParkedStatusUpdateStore implements ParkedStatusUpdateStore {
+
+    private final Cache<Key, InvoiceStatusUpdateEvent> parked;
+    private final ParkedStatusUpdateMetrics metrics;
+
+    public InMemoryParkedStatusUpdateStore(
+            @Value("${app.plan.parking.max-size:10000}") long maxSize,
+            @Value("${app.plan.parking.ttl:PT1H}") Duration ttl,
+            ParkedStatusUpdateMetrics metrics
+    ) {
+        this.metrics = metrics;
+        this.parked = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((Key key, InvoiceStatusUpdateEvent event, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        metrics.expired(cause == RemovalCause.SIZE ? "size" : "ttl", 1);
+                        log.warn("⌛ [PARKING] Parked status update dropped | userId={} | invoiceId={} | cause={}",
+                                key.userId(), key.invoiceId(), cause);
+                    }
+                })
+                .build();
+        log.info("🅿️  [PARKING] In-memory parking store initialized | maxSize={} | ttl={}", maxSize, ttl);
+    }
+
+    /**
+     * Nothing to do: the store is local to this instance, where the invoice lanes already serialize
+     * parking and plan creation of an invoice.
+     */
+    @Override
+    public void lock(String userId, UUID invoiceId) {
+    }
+
+    @Override
+    public void park(InvoiceStatusUpdateEvent event) {
+        parked.asMap().merge(new Key(event.userId, event.invoiceId), event, InvoiceStatusUpdateEvent::mergedWith);
+        metrics.parked();
+    }
+
+    @Override
+    public Optional<InvoiceStatusUpdateEvent> take(String userId, UUID invoiceId) {
+        Key key = new Key(userId, invoiceId);
+        InvoiceStatusUpdateEvent taken = parked.asMap().remove(key);
+        if (taken == null) {
+            return Optional.empty();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // Put the update back ahead of anything parked since it was taken
+                        parked.asMap().merge(key, taken, (since, restored) -> restored.mergedWith(since));
+                    }
+                }
+            });
+        }
+        metrics.applied();
+        return Optional.of(taken);
+    }
+
+    private record Key(String userId, UUID invoiceId) {
+    }
+}
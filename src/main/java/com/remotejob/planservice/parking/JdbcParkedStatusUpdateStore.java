@@ -0,0 +1,149 @@
+package com.remotejob.planservice.parking;
+
+import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.fromDb;
+import static com.remotejob.planservice.util.JdbcTimestamps.toDb;
+
+/**
+ * {@link ParkedStatusUpdateStore} backed by the {@code parked_status_update} table, shared by every
+ * instance and durable across restarts.
+ * <p>
+ * Taking an update deletes its row in the caller's transaction, so a rolled back plan creation leaves
+ * the update parked. {@link #lock} takes a transaction-scoped advisory lock per invoice. Rows older than the TTL are ignored on take and deleted by a periodic sweep,
+ * which also trims the table to the configured size, oldest first.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.plan.parking.store", havingValue = "jdbc")
+public class JdbcParkedStatusUpdateStore implements ParkedStatusUpdateStore {
+
+    /**
+     * Arbitrary application-wide namespace of the per-invoice advisory locks, keeping them apart from
+     * other advisory locks of the database.
+     */
+    private static final int LOCK_NAMESPACE = 0x7061726b;
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(?, hashtext(? || '/' || ?::text))";
+
+    private static final String PARK_SQL = """
+            INSERT INTO parked_status_update (user_id, invoice_id, status, is_active, expires_at, job_id, parked_at)
+            VALUES (?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (user_id, invoice_id) DO UPDATE SET
+                status = COALESCE(EXCLUDED.status, parked_status_update.status),
+                is_active = COALESCE(EXCLUDED.is_active, parked_status_update.is_active),
+                expires_at = COALESCE(EXCLUDED.expires_at, parked_status_update.expires_at),
+                job_id = COALESCE(EXCLUDED.job_id, parked_status_update.job_id),
+                parked_at = EXCLUDED.parked_at
+            """;
+
+    private static final String TAKE_SQL = """
+            DELETE FROM parked_status_update
+            WHERE user_id = ? AND invoice_id = ? AND parked_at > ?
+            RETURNING user_id, invoice_id, status, is_active, expires_at, job_id
+            """;
+
+    private static final String SWEEP_EXPIRED_SQL = "DELETE FROM parked_status_update WHERE parked_at <= ?";
+
+    private static final String TRIM_SQL = """
+            DELETE FROM parked_status_update
+            WHERE (user_id, invoice_id) IN (
+                SELECT user_id, invoice_id FROM parked_status_update
+                ORDER BY parked_at DESC
+                OFFSET ?
+            )
+            """;
+
+    private static final RowMapper<InvoiceStatusUpdateEvent> ROW_MAPPER = (rs, rowNum) -> {
+        InvoiceStatusUpdateEvent event = new InvoiceStatusUpdateEvent();
+        event.userId = rs.getString("user_id");
+        event.invoiceId = rs.getObject("invoice_id", UUID.class);
+        event.status = rs.getString("status");
+        event.isActive = (Boolean) rs.getObject("is_active");
+        event.expiresAt = fromDb(rs, "expires_at");
+        event.jobId = rs.getString("job_id");
+        return event;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParkedStatusUpdateMetrics metrics;
+    private final Duration ttl;
+    private final long maxSize;
+
+    public JdbcParkedStatusUpdateStore(
+            JdbcTemplate jdbcTemplate,
+            ParkedStatusUpdateMetrics metrics,
+            @Value("${app.plan.parking.max-size:10000}") long maxSize,
+            @Value("${app.plan.parking.ttl:PT1H}") Duration ttl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        log.info("🅿️  [PARKING] JDBC parking store initialized | maxSize={} | ttl={}", maxSize, ttl);
+    }
+
+    @Override
+    public void lock(String userId, UUID invoiceId) {
+        jdbcTemplate.query(LOCK_SQL, rs -> null, LOCK_NAMESPACE, userId, invoiceId);
+    }
+
+    @Override
+    public void park(InvoiceStatusUpdateEvent event) {
+        jdbcTemplate.update(PARK_SQL,
+                event.userId,
+                event.invoiceId,
+                event.status,
+                event.isActive,
+                toDb(event.expiresAt),
+                event.jobId);
+        metrics.parked();
+    }
+
+    @Override
+    public Optional<InvoiceStatusUpdateEvent> take(String userId, UUID invoiceId) {
+        List<InvoiceStatusUpdateEvent> taken = jdbcTemplate.query(TAKE_SQL, ROW_MAPPER,
+                userId, invoiceId, toDb(cutoff()));
+        if (taken.isEmpty()) {
+            return Optional.empty();
+        }
+        metrics.applied();
+        return Optional.of(taken.get(0));
+    }
+
+    /**
+     * Deletes parked updates older than the TTL and trims the table to the size bound.
+     */
+    @Scheduled(fixedDelayString = "${app.plan.parking.sweep-interval:PT1M}",
+            initialDelayString = "${app.plan.parking.sweep-interval:PT1M}")
+    public void sweep() {
+        int expired = jdbcTemplate.update(SWEEP_EXPIRED_SQL, toDb(cutoff()));
+        int trimmed = jdbcTemplate.update(TRIM_SQL, maxSize);
+        if (expired > 0) {
+            metrics.expired("ttl", expired);
+        }
+        if (trimmed > 0) {
+            metrics.expired("size", trimmed);
+        }
+        if (expired + trimmed > 0) {
+            log.warn("⌛ [PARKING] Parked status updates dropped | expired={} | trimmed={}", expired, trimmed);
+        }
+    }
+
+    private Instant cutoff() {
+        return Instant.now().minus(ttl);
+    }
+}
@@ -0,0 +1,62 @@
+package com.remotejob.planservice.parking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counters shared by the {@link ParkedStatusUpdateStore} implementations, published under
+ * {@code invoice.status.updates.parked}, {@code .applied} and {@code .expired}.
+ */
+@Component
+public class ParkedStatusUpdateMetrics {
+
+    private final Counter parked;
+    private final Counter applied;
+    private final MeterRegistry meterRegistry;
+
+    public ParkedStatusUpdateMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.parked = Counter.builder("invoice.status.updates.parked")
+                .description("Status updates parked because their plan did not exist yet")
+                .register(meterRegistry);
+        this.applied = Counter.builder("invoice.status.updates.parked.applied")
+                .description("Parked status updates applied when their plan was created")
+                .register(meterRegistry);
+    }
+
+    void parked() {
+        parked.increment();
+    }
+
+    /**
+     * Counts an applied update once the surrounding transaction, if any, has committed.
+     */
+    void applied() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applied.increment();
+                }
+            });
+        } else {
+            applied.increment();
+        }
+    }
+
+    /**
+     * Counts parked updates dropped without being applied.
+     *
+     * @param cause {@code ttl} when the update outlived the parking TTL, {@code size} when evicted by the size bound
+     */
+    void expired(String cause, long count) {
+        Counter.builder("invoice.status.updates.parked.expired")
+                .description("Parked status updates dropped without being applied")
+                .tag("cause", cause)
+                .register(meterRegistry)
+                .increment(count);
+    }
+}
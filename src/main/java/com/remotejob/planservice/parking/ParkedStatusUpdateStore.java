@@ -0,0 +1,45 @@
+package com.remotejob.planservice.parking;
+
+import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds invoice status updates that arrived before their plan existed, keyed by
+ * {@code (userId, invoiceId)}, until the plan is created or the update expires.
+ * <p>
+ * Several updates parked for the same invoice are merged in arrival order. Taking an update
+ * inside a transaction puts it back if the transaction does not commit.
+ * <p>
+ * Checking that a plan does not exist and parking its update is not atomic on its own: a plan created
+ * in between would never take the update. Both sides therefore {@link #lock} the invoice first, in the
+ * transaction that parks or takes.
+ */
+public interface ParkedStatusUpdateStore {
+
+    /**
+     * Serializes parking and taking for an invoice, across instances when the store is shared, until
+     * the current transaction ends. Must be called inside a transaction.
+     *
+     * @param userId    the user id of the plan
+     * @param invoiceId the invoice id of the plan
+     */
+    void lock(String userId, UUID invoiceId);
+
+    /**
+     * Parks an update whose plan does not exist yet.
+     *
+     * @param event the update, with userId and invoiceId set
+     */
+    void park(InvoiceStatusUpdateEvent event);
+
+    /**
+     * Removes and returns the update parked for an invoice, if any and not expired.
+     *
+     * @param userId    the user id of the plan
+     * @param invoiceId the invoice id of the plan
+     * @return the merged parked update, or empty
+     */
+    Optional<InvoiceStatusUpdateEvent> take(String userId, UUID invoiceId);
+}
@@ -0,0 +1,22 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.util.RawJson;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Lightweight projection of a plan linked to a job, without the {@code items} payload.
+ */
+public interface JobPlanView {
+
+    UUID getId();
+
+    String getJobId();
+
+    Integer getPlanType();
+
+    Instant getExpiresAt();
+
+    RawJson getMetadata();
+}
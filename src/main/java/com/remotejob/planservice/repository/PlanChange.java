@@ -0,0 +1,23 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.util.ChangeCursor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of the plan change feed: the current state of a plan that was inserted or updated,
+ * or a tombstone for a plan that was deleted.
+ *
+ * @param cursor    the feed position of this change
+ * @param planId    the plan id
+ * @param plan      the current state of the plan, null for a tombstone
+ * @param deletedAt when the plan was deleted, null unless this is a tombstone
+ */
+public record PlanChange(ChangeCursor cursor, UUID planId, Plan plan, Instant deletedAt) {
+
+    public boolean isDeleted() {
+        return plan == null;
+    }
+}
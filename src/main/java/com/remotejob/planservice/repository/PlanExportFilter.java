@@ -0,0 +1,14 @@
+package com.remotejob.planservice.repository;
+
+import java.time.Instant;
+
+/**
+ * Optional filters applied to a plan export. Null values are ignored.
+ *
+ * @param status       only plans with this status
+ * @param isActive     only active or only inactive plans
+ * @param expiresFrom  only plans expiring at or after this instant
+ * @param expiresTo    only plans expiring before this instant
+ */
+public record PlanExportFilter(String status, Boolean isActive, Instant expiresFrom, Instant expiresTo) {
+}
@@ -0,0 +1,74 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.util.RawJson;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Fields to set on a plan by a partial update. Null values leave the column unchanged.
+ *
+ * @param description    the new description
+ * @param isActive       the new active flag
+ * @param items          the changes to the items document
+ * @param status         the new status
+ * @param durationInDays the new duration in days
+ * @param expiresAt      the new expiration time
+ * @param metadata       the changes to the metadata document
+ */
+public record PlanPatch(String description, Boolean isActive, DocumentPatch items, String status,
+                        Integer durationInDays, Instant expiresAt, DocumentPatch metadata) {
+
+    /**
+     * @return whether the patch sets no field at all
+     */
+    public boolean isEmpty() {
+        return description == null && isActive == null && DocumentPatch.isEmpty(items) && status == null
+                && durationInDays == null && expiresAt == null && DocumentPatch.isEmpty(metadata);
+    }
+
+    /**
+     * Changes to a JSONB document, applied by the database without reading the document first.
+     * A replacement excludes the other changes; otherwise the merge patch is applied first, then
+     * the path updates in order.
+     *
+     * @param replacement the new document, replacing the current one
+     * @param mergePatch  an RFC 7396 JSON merge patch object
+     * @param paths       updates of single members
+     */
+    public record DocumentPatch(RawJson replacement, RawJson mergePatch, List<PathUpdate> paths) {
+
+        public DocumentPatch {
+            paths = paths == null ? List.of() : List.copyOf(paths);
+        }
+
+        public static DocumentPatch replace(RawJson replacement) {
+            return new DocumentPatch(replacement, null, List.of());
+        }
+
+        static boolean isEmpty(DocumentPatch patch) {
+            return patch == null || (patch.replacement == null && patch.mergePatch == null && patch.paths.isEmpty());
+        }
+    }
+
+    /**
+     * Sets or removes the member at a path of a document. Setting creates the missing parents of
+     * the member as objects, replacing any parent that is not an object or an array.
+     *
+     * @param path  the member names (or array indexes) from the document root, at least one
+     * @param value the value to set, or null to remove the member
+     */
+    public record PathUpdate(List<String> path, RawJson value) {
+
+        public PathUpdate {
+            if (path == null || path.isEmpty()) {
+                throw new IllegalArgumentException("A path update needs a non-empty path");
+            }
+            path = List.copyOf(path);
+        }
+
+        public boolean isRemoval() {
+            return value == null;
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.remotejob.planservice.repository;
 
 import com.remotejob.planservice.entity.Plan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Plan entities.
  */
 @Repository
-public interface PlanRepository extends JpaRepository<Plan, UUID> {
+public interface PlanRepository extends JpaRepository<Plan, UUID>, PlanRepositoryCustom {
     /**
-     * Retrieves a list of plans associated with a specific user ID.
+     * Retrieves a list of plans associated with a specific user ID, ordered by plan ID.
      */
-    List<Plan> findByUserId(String id);
+    List<Plan> findByUserIdOrderById(String id);
 
     /**
      * Retrieves a plan by userId and invoiceId.
@@ -30,12 +39,140 @@ public interface PlanRepository extends JpaRepository<Plan, UUID> {
     List<Plan> findByJobId(String jobId);
 
     /**
-     * Retrieves all active plans that haven't expired and have a job ID.
-     * Used to find sticky plans - filtering by metadata is done in the service layer.
-     * 
-     * @param isActive Active status
-     * @param expiresAt Current timestamp to filter expired plans
-     * @return List of active plans with job IDs, ordered by expiration date descending
+     * Retrieves the earliest expiration date among the active plans that have not expired yet.
      */
-    List<Plan> findByIsActiveAndExpiresAtAfterAndJobIdIsNotNullOrderByExpiresAtDesc(Boolean isActive, Instant expiresAt);
+    @Query("SELECT min(p.expiresAt) FROM Plan p WHERE p.isActive = true AND p.expiresAt > :now")
+    Optional<Instant> findNextExpiryAfter(@Param("now") Instant now);
+
+    /**
+     * Retrieves the current optimistic lock version of a plan without loading it, and locks the
+     * plan's row until the end of the transaction so no other writer can move the version on.
+     */
+    @Query(value = "SELECT version FROM plan WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockVersionById(@Param("id") UUID id);
+
+    /**
+     * Retrieves a plan by id as the given projection, selecting only the projected columns.
+     */
+    <T> Optional<T> findProjectedById(UUID id, Class<T> type);
+
+    /**
+     * Retrieves the plans of a user as the given projection, selecting only the projected columns.
+     */
+    <T> List<T> findProjectedByUserId(String userId, Class<T> type);
+
+    /**
+     * Retrieves the plans of a job as the given projection, selecting only the projected columns.
+     */
+    <T> List<T> findProjectedByJobId(String jobId, Class<T> type);
+
+    /**
+     * Retrieves up to {@code limit} plans of any of the given users in a single query.
+     */
+    List<Plan> findByUserIdIn(Collection<String> userIds, Limit limit);
+
+    /**
+     * Retrieves up to {@code limit} plans of any of the given invoices in a single query.
+     */
+    List<Plan> findByInvoiceIdIn(Collection<UUID> invoiceIds, Limit limit);
+
+    /**
+     * Retrieves all active sticky plans that haven't expired and have a job ID.
+     * Filtering is done on the denormalized plan_type column and served by the
+     * idx_plan_active_sticky partial index.
+     *
+     * @param now       Current timestamp to filter expired plans
+     * @param planTypes Plan types considered sticky
+     * @return List of active sticky plans, ordered by expiration date descending
+     */
+    @Query("SELECT p FROM Plan p WHERE p.isActive = true AND p.jobId IS NOT NULL " +
+            "AND p.expiresAt > :now AND p.planType IN :planTypes ORDER BY p.expiresAt DESC")
+    List<Plan> findActiveStickyPlans(@Param("now") Instant now, @Param("planTypes") Collection<Integer> planTypes);
+
+    /**
+     * Retrieves the active, unexpired plans linked to a job as lightweight projections.
+     * Used to rebuild the job decoration index without loading the {@code items} payload.
+     *
+     * @param now Current timestamp to filter expired plans
+     * @return List of job plan projections
+     */
+    @Query("SELECT p.id AS id, p.jobId AS jobId, p.planType AS planType, p.expiresAt AS expiresAt, " +
+            "p.metadata AS metadata FROM Plan p WHERE p.isActive = true AND p.jobId IS NOT NULL " +
+            "AND (p.expiresAt IS NULL OR p.expiresAt > :now)")
+    List<JobPlanView> findActiveJobPlans(@Param("now") Instant now);
+
+    /**
+     * Keyset page of dated plans for a user, after the given (expiresAt, id) position.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.userId = :userId AND p.expiresAt IS NOT NULL " +
+            "AND (p.expiresAt < :expiresAt OR (p.expiresAt = :expiresAt AND p.id < :id)) " +
+            "ORDER BY p.expiresAt DESC, p.id DESC")
+    List<Plan> findDatedPageByUserId(@Param("userId") String userId, @Param("expiresAt") Instant expiresAt,
+                                     @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of unlimited plans (no expiration date) for a user, after the given id.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.userId = :userId AND p.expiresAt IS NULL AND p.id < :id ORDER BY p.id DESC")
+    List<Plan> findUnlimitedPageByUserId(@Param("userId") String userId, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of dated plans for a job, after the given (expiresAt, id) position.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.jobId = :jobId AND p.expiresAt IS NOT NULL " +
+            "AND (p.expiresAt < :expiresAt OR (p.expiresAt = :expiresAt AND p.id < :id)) " +
+            "ORDER BY p.expiresAt DESC, p.id DESC")
+    List<Plan> findDatedPageByJobId(@Param("jobId") String jobId, @Param("expiresAt") Instant expiresAt,
+                                    @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of unlimited plans (no expiration date) for a job, after the given id.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.jobId = :jobId AND p.expiresAt IS NULL AND p.id < :id ORDER BY p.id DESC")
+    List<Plan> findUnlimitedPageByJobId(@Param("jobId") String jobId, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of all dated plans, after the given (expiresAt, id) position.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.expiresAt IS NOT NULL " +
+            "AND (p.expiresAt < :expiresAt OR (p.expiresAt = :expiresAt AND p.id < :id)) " +
+            "ORDER BY p.expiresAt DESC, p.id DESC")
+    List<Plan> findDatedPage(@Param("expiresAt") Instant expiresAt, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of all unlimited plans (no expiration date), after the given id.
+     */
+    @Query("SELECT p FROM Plan p WHERE p.expiresAt IS NULL AND p.id < :id ORDER BY p.id DESC")
+    List<Plan> findUnlimitedPage(@Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Streams the plans of a user through a server-side JDBC cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Plan> streamByUserId(String userId);
+
+    /**
+     * Streams the plans of a job through a server-side JDBC cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Plan> streamByJobId(String jobId);
+
+    /**
+     * Streams all plans through a server-side JDBC cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Plan p")
+    Stream<Plan> streamAll();
 }
@@ -0,0 +1,81 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.util.ChangeCursor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Plan repository operations implemented with plain JDBC.
+ */
+public interface PlanRepositoryCustom {
+
+    /**
+     * Reads the plans matching the filter through a forward-only, read-only JDBC cursor and
+     * hands each row to the handler as it arrives. JSONB columns are exposed as text.
+     * Must be called inside a transaction so the driver can fetch in batches.
+     *
+     * @param filter  the filters to apply
+     * @param handler receives each row; must not keep a reference to the result set
+     */
+    void exportPlans(PlanExportFilter filter, RowCallbackHandler handler);
+
+    /**
+     * Inserts the plan, or updates the existing plan with the same {@code (user_id, invoice_id)},
+     * with a single {@code INSERT ... ON CONFLICT DO UPDATE ... RETURNING} statement. A plan without
+     * an id gets a new one; an existing plan keeps its id.
+     *
+     * @param plan the plan to write
+     * @return the resulting row and whether it was inserted or updated
+     */
+    PlanUpsertResult upsertPlan(Plan plan);
+
+    /**
+     * Multi-row variant of {@link #upsertPlan(Plan)}, writing the plans with as few statements as
+     * possible. The plans must have distinct (userId, invoiceId) keys.
+     *
+     * @param plans the plans to write
+     * @return the resulting rows and whether each was inserted or updated
+     */
+    List<PlanUpsertResult> upsertPlans(List<Plan> plans);
+
+    /**
+     * Sets the non-null fields of the patch on a plan and increments its version with a single
+     * {@code UPDATE ... RETURNING} statement. With an expected version the update only applies while
+     * the plan is still at that version (compare-and-set). An empty patch only reads the plan.
+     *
+     * @param id              the plan to update
+     * @param patch           the fields to set
+     * @param expectedVersion the version the plan must be at, or null to update any version
+     * @return the updated row, or empty if no plan has the id (at the expected version)
+     */
+    Optional<Plan> patchPlan(UUID id, PlanPatch patch, Long expectedVersion);
+
+    /**
+     * Deactivates up to {@code limit} active plans that expired at or before {@code now}, oldest
+     * expiry first, setting their status and incrementing their version. Rows locked by another
+     * transaction are skipped ({@code FOR UPDATE SKIP LOCKED}), so concurrent callers deactivate
+     * disjoint batches.
+     *
+     * @param now    the expiry cutoff
+     * @param status the status to give the deactivated plans
+     * @param limit  the maximum number of plans to deactivate
+     * @return the deactivated rows
+     */
+    List<Plan> deactivateExpired(Instant now, String status, int limit);
+
+    /**
+     * Reads the changes after the cursor, in feed order: plans inserted or updated and tombstones of
+     * deleted plans, each reported once with its latest state. Only changes of transactions older than
+     * every transaction still running are returned, so no change can later appear behind the cursor.
+     *
+     * @param after the position of the last change already read
+     * @param limit the maximum number of changes to return
+     * @return the changes, ordered by their cursor
+     */
+    List<PlanChange> findChangesAfter(ChangeCursor after, int limit);
+}
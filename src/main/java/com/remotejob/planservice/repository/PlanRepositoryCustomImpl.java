@@ -0,0 +1,272 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.util.ChangeCursor;
+import com.remotejob.planservice.util.RawJson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.fromDb;
+import static com.remotejob.planservice.util.JdbcTimestamps.toDb;
+
+/**
+ * JDBC implementation of {@link PlanRepositoryCustom}.
+ */
+class PlanRepositoryCustomImpl implements PlanRepositoryCustom {
+
+    private static final String EXPORT_COLUMNS = "id, user_id, invoice_id, description, is_active, items::text AS items, " +
+            "status, duration_in_days, expires_at, job_id, metadata::text AS metadata";
+
+    private static final String UPSERT_INSERT = "INSERT INTO plan (id, user_id, invoice_id, description, is_active, items, " +
+            "status, duration_in_days, expires_at, job_id, metadata, updated_at) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?::jsonb, ?)";
+    // xmax is 0 only for a freshly inserted row version, which tells inserts from conflict updates
+    private static final String UPSERT_CONFLICT = " ON CONFLICT (user_id, invoice_id) DO UPDATE SET " +
+            "description = EXCLUDED.description, is_active = EXCLUDED.is_active, items = EXCLUDED.items, " +
+            "status = EXCLUDED.status, duration_in_days = EXCLUDED.duration_in_days, expires_at = EXCLUDED.expires_at, " +
+            "job_id = EXCLUDED.job_id, metadata = EXCLUDED.metadata, updated_at = EXCLUDED.updated_at, " +
+            "version = plan.version + 1 " +
+            "RETURNING *, (xmax = 0) AS inserted";
+    // Transactions below the snapshot xmin have all finished, so their committed changes are visible
+    // to every later statement; changes of newer transactions wait for the next read
+    private static final String CHANGES_HORIZON = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    private static final String CHANGED_PLANS = "SELECT *, change_xid::text::bigint AS change_xid_value FROM plan " +
+            "WHERE (change_xid, change_seq) > (?::text::xid8, ?) AND change_xid < ?::text::xid8 " +
+            "ORDER BY change_xid, change_seq LIMIT ?";
+    private static final String TOMBSTONES = "SELECT plan_id, deleted_at, change_seq, change_xid::text::bigint AS change_xid_value " +
+            "FROM plan_tombstone WHERE (change_xid, change_seq) > (?::text::xid8, ?) AND change_xid < ?::text::xid8 " +
+            "ORDER BY change_xid, change_seq LIMIT ?";
+    private static final String DEACTIVATE_EXPIRED = "UPDATE plan SET is_active = false, status = ?, updated_at = ?, " +
+            "version = version + 1 WHERE id IN (SELECT id FROM plan WHERE is_active = true AND expires_at <= ? " +
+            "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING *";
+    private static final Comparator<PlanChange> FEED_ORDER = Comparator
+            .comparingLong((PlanChange change) -> change.cursor().xid())
+            .thenComparingLong(change -> change.cursor().sequence());
+
+    // Keeps each statement well below the 32767 bind parameter limit of the PostgreSQL protocol
+    private static final int UPSERT_ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int exportFetchSize;
+
+    PlanRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                             @Value("${app.plan.export.fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    @Override
+    public void exportPlans(PlanExportFilter filter, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(EXPORT_COLUMNS).append(" FROM plan WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            params.add(filter.status());
+        }
+        if (filter.isActive() != null) {
+            sql.append(" AND is_active = ?");
+            params.add(filter.isActive());
+        }
+        if (filter.expiresFrom() != null) {
+            sql.append(" AND expires_at >= ?");
+            params.add(toDb(filter.expiresFrom()));
+        }
+        if (filter.expiresTo() != null) {
+            sql.append(" AND expires_at < ?");
+            params.add(toDb(filter.expiresTo()));
+        }
+        // Ordered by primary key, so that repeated exports of the same data are identical
+        sql.append(" ORDER BY id");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        }, handler);
+    }
+
+    @Override
+    public PlanUpsertResult upsertPlan(Plan plan) {
+        return upsertPlans(List.of(plan)).get(0);
+    }
+
+    @Override
+    public List<PlanUpsertResult> upsertPlans(List<Plan> plans) {
+        List<PlanUpsertResult> saved = new ArrayList<>(plans.size());
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        for (int from = 0; from < plans.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+            List<Plan> chunk = plans.subList(from, Math.min(from + UPSERT_ROWS_PER_STATEMENT, plans.size()));
+            StringBuilder sql = new StringBuilder(UPSERT_INSERT);
+            List<Object> params = new ArrayList<>(chunk.size() * 12);
+            for (Plan plan : chunk) {
+                if (!params.isEmpty()) {
+                    sql.append(", ");
+                }
+                sql.append(UPSERT_ROW);
+                params.add(plan.getId() != null ? plan.getId() : UUID.randomUUID());
+                params.add(plan.getUserId());
+                params.add(plan.getInvoiceId());
+                params.add(plan.getDescription());
+                params.add(plan.getIsActive());
+                params.add(json(plan.getItems()));
+                params.add(plan.getStatus());
+                params.add(plan.getDurationInDays());
+                params.add(toDb(plan.getExpiresAt()));
+                params.add(plan.getJobId());
+                params.add(json(plan.getMetadata()));
+                params.add(toDb(updatedAt));
+            }
+            sql.append(UPSERT_CONFLICT);
+            saved.addAll(jdbcTemplate.query(sql.toString(),
+                    (rs, rowNum) -> new PlanUpsertResult(PlanRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getBoolean("inserted")),
+                    params.toArray()));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<Plan> patchPlan(UUID id, PlanPatch patch, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        if (patch.isEmpty()) {
+            sql.append("SELECT * FROM plan WHERE id = ?");
+        } else {
+            sql.append("UPDATE plan SET ");
+            if (patch.description() != null) {
+                sql.append("description = ?, ");
+                params.add(patch.description());
+            }
+            if (patch.isActive() != null) {
+                sql.append("is_active = ?, ");
+                params.add(patch.isActive());
+            }
+            appendDocumentPatch(sql, params, "items", patch.items());
+            appendDocumentPatch(sql, params, "metadata", patch.metadata());
+            if (patch.status() != null) {
+                sql.append("status = ?, ");
+                params.add(patch.status());
+            }
+            if (patch.durationInDays() != null) {
+                sql.append("duration_in_days = ?, ");
+                params.add(patch.durationInDays());
+            }
+            if (patch.expiresAt() != null) {
+                sql.append("expires_at = ?, ");
+                params.add(toDb(patch.expiresAt()));
+            }
+            sql.append("updated_at = ?, version = version + 1 WHERE id = ?");
+            params.add(toDb(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+        }
+        params.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = ?");
+            params.add(expectedVersion);
+        }
+        if (!patch.isEmpty()) {
+            sql.append(" RETURNING *");
+        }
+        return jdbcTemplate.query(sql.toString(), PlanRowMapper.INSTANCE, params.toArray()).stream().findFirst();
+    }
+
+    @Override
+    public List<Plan> deactivateExpired(Instant now, String status, int limit) {
+        return jdbcTemplate.query(DEACTIVATE_EXPIRED, PlanRowMapper.INSTANCE,
+                status, toDb(Instant.now().truncatedTo(ChronoUnit.MICROS)), toDb(now), limit);
+    }
+
+    @Override
+    public List<PlanChange> findChangesAfter(ChangeCursor after, int limit) {
+        Long horizon = jdbcTemplate.queryForObject(CHANGES_HORIZON, Long.class);
+        List<PlanChange> changes = new ArrayList<>(jdbcTemplate.query(CHANGED_PLANS,
+                (rs, rowNum) -> new PlanChange(cursorOf(rs), rs.getObject("id", UUID.class),
+                        PlanRowMapper.INSTANCE.mapRow(rs, rowNum), null),
+                after.xid(), after.sequence(), horizon, limit));
+        changes.addAll(jdbcTemplate.query(TOMBSTONES,
+                (rs, rowNum) -> new PlanChange(cursorOf(rs), rs.getObject("plan_id", UUID.class),
+                        null, fromDb(rs, "deleted_at")),
+                after.xid(), after.sequence(), horizon, limit));
+        changes.sort(FEED_ORDER);
+        return changes.size() > limit ? List.copyOf(changes.subList(0, limit)) : changes;
+    }
+
+    /**
+     * Appends the assignment of a JSONB column changed by a document patch. Merge patches and path
+     * updates are nested around the current value so the database applies them in one expression.
+     */
+    private static void appendDocumentPatch(StringBuilder sql, List<Object> params, String column,
+                                            PlanPatch.DocumentPatch patch) {
+        if (patch == null) {
+            return;
+        }
+        if (patch.replacement() != null) {
+            sql.append(column).append(" = ?::jsonb, ");
+            params.add(json(patch.replacement()));
+            return;
+        }
+        if (patch.mergePatch() == null && patch.paths().isEmpty()) {
+            return;
+        }
+        String expression = "coalesce(" + column + ", '{}'::jsonb)";
+        if (patch.mergePatch() != null) {
+            expression = "jsonb_merge_patch(" + expression + ", ?::jsonb)";
+            params.add(json(patch.mergePatch()));
+        }
+        for (PlanPatch.PathUpdate update : patch.paths()) {
+            if (update.isRemoval()) {
+                expression = "(" + expression + " #- ?::text[])";
+                params.add(textArray(update.path()));
+            } else {
+                expression = "jsonb_set_path(" + expression + ", ?::text[], ?::jsonb)";
+                params.add(textArray(update.path()));
+                params.add(json(update.value()));
+            }
+        }
+        sql.append(column).append(" = ").append(expression).append(", ");
+    }
+
+    /**
+     * Renders a PostgreSQL array literal of the given elements, each quoted.
+     */
+    private static String textArray(List<String> elements) {
+        StringBuilder literal = new StringBuilder("{");
+        for (String element : elements) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append('"');
+            for (int i = 0; i < element.length(); i++) {
+                char c = element.charAt(i);
+                if (c == '"' || c == '\\') {
+                    literal.append('\\');
+                }
+                literal.append(c);
+            }
+            literal.append('"');
+        }
+        return literal.append('}').toString();
+    }
+
+    private static ChangeCursor cursorOf(ResultSet rs) throws SQLException {
+        return new ChangeCursor(rs.getLong("change_xid_value"), rs.getLong("change_seq"));
+    }
+
+    private static String json(RawJson value) {
+        return value == null ? null : value.json();
+    }
+}
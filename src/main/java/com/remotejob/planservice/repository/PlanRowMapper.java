@@ -0,0 +1,39 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.util.RawJson;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.fromDb;
+
+/**
+ * Maps a full {@code plan} row, as returned by {@code RETURNING *}, to a detached {@link Plan}.
+ */
+class PlanRowMapper implements RowMapper<Plan> {
+
+    static final PlanRowMapper INSTANCE = new PlanRowMapper();
+
+    @Override
+    public Plan mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Plan plan = new Plan();
+        plan.setId(rs.getObject("id", UUID.class));
+        plan.setUserId(rs.getString("user_id"));
+        plan.setInvoiceId(rs.getObject("invoice_id", UUID.class));
+        plan.setDescription(rs.getString("description"));
+        plan.setIsActive(rs.getObject("is_active", Boolean.class));
+        plan.setItems(RawJson.of(rs.getString("items")));
+        plan.setStatus(rs.getString("status"));
+        plan.setDurationInDays(rs.getObject("duration_in_days", Integer.class));
+        plan.setExpiresAt(fromDb(rs, "expires_at"));
+        plan.setJobId(rs.getString("job_id"));
+        plan.setMetadata(RawJson.of(rs.getString("metadata")));
+        plan.setPlanType(rs.getObject("plan_type", Integer.class));
+        plan.setUpdatedAt(fromDb(rs, "updated_at"));
+        plan.setVersion(rs.getLong("version"));
+        return plan;
+    }
+}
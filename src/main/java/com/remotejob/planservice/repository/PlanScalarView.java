@@ -0,0 +1,17 @@
+package com.remotejob.planservice.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection of every plan column except the {@code items} and {@code metadata} JSONB payloads.
+ */
+public interface PlanScalarView extends PlanSummaryView {
+
+    String getUserId();
+
+    UUID getInvoiceId();
+
+    String getDescription();
+
+    Integer getDurationInDays();
+}
@@ -0,0 +1,21 @@
+package com.remotejob.planservice.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Projection of the plan columns most read endpoints need. Queries returning this
+ * type only select these columns.
+ */
+public interface PlanSummaryView {
+
+    UUID getId();
+
+    String getStatus();
+
+    Boolean getIsActive();
+
+    Instant getExpiresAt();
+
+    String getJobId();
+}
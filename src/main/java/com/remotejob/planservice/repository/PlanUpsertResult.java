@@ -0,0 +1,12 @@
+package com.remotejob.planservice.repository;
+
+import com.remotejob.planservice.entity.Plan;
+
+/**
+ * Outcome of an upsert keyed by (userId, invoiceId).
+ *
+ * @param plan     the resulting row, as a detached plan
+ * @param inserted true if the row was inserted, false if an existing plan was updated
+ */
+public record PlanUpsertResult(Plan plan, boolean inserted) {
+}
@@ -15,6 +15,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
 import java.io.IOException;
+import java.util.Set;
 
 /**
  * JwtFilter is a servlet filter that intercepts HTTP requests to check for a valid JWT token in the Authorization header.
@@ -28,6 +29,14 @@ public class JwtFilter extends GenericFilterBean {
 
     private static final String AUTHORIZATION = "Authorization";
 
+    /**
+     * GET paths that would match the public {@code /api/v1/plan/{id}} pattern but require authentication.
+     */
+    private static final Set<String> PROTECTED_GET_PATHS = Set.of(
+            "/api/v1/plan/export",
+            "/api/v1/plan/changes"
+    );
+
     private final JwtProvider jwtProvider;
 
     /**
@@ -52,7 +61,7 @@ public class JwtFilter extends GenericFilterBean {
         log.info("Processing request to: {} {}", method, requestURI);
 
         // Skip JWT validation for public endpoints
-        if (isPublicEndpoint(method, requestURI)) {
+        if (isPublicEndpoint(method, requestURI, isStreamRequest(httpRequest))) {
             log.info("Public endpoint - skipping JWT validation");
             fc.doFilter(request, response);
             return;
@@ -80,9 +89,10 @@ public class JwtFilter extends GenericFilterBean {
      *
      * @param method the HTTP method (GET, POST, etc.)
      * @param path the request URI path
+     * @param stream whether the request asks for a streamed response ({@code stream=true})
      * @return true if the endpoint is public, false otherwise
      */
-    private boolean isPublicEndpoint(String method, String path) {
+    private boolean isPublicEndpoint(String method, String path, boolean stream) {
         // OPTIONS requests are always public (CORS preflight)
         if ("OPTIONS".equals(method)) {
             return true;
@@ -90,6 +100,10 @@ public class JwtFilter extends GenericFilterBean {
 
         // Public GET endpoints
         if ("GET".equals(method)) {
+            // Streamed variants hold a database cursor for the whole response
+            if (PROTECTED_GET_PATHS.contains(path) || stream) {
+                return false;
+            }
             return path.matches("/api/v1/plan/[^/]+") || // /api/v1/plan/{id}
                    path.matches("/api/v1/plan/user/[^/]+") || // /api/v1/plan/user/{userId}
                    path.matches("/api/v1/plan/job/[^/]+") || // /api/v1/plan/job/{jobId}
@@ -100,9 +114,24 @@ public class JwtFilter extends GenericFilterBean {
                    path.startsWith("/api-docs");
         }
 
+        // Public read-only batch lookup
+        if ("POST".equals(method)) {
+            return path.equals("/api/v1/plan/batch");
+        }
+
         return false;
     }
 
+    /**
+     * Checks if the request asks for the streamed variant of a plan listing.
+     *
+     * @param request the HttpServletRequest to check
+     * @return true if the request carries {@code stream=true}
+     */
+    static boolean isStreamRequest(HttpServletRequest request) {
+        return "true".equals(request.getParameter("stream"));
+    }
+
     /**
      * Extracts the JWT token from the HTTP request's Authorization header.
      * The token is expected to be prefixed with "Bearer ".
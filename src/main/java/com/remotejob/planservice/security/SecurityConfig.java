@@ -102,12 +102,25 @@ public class SecurityConfig {
                         ).permitAll()
                         .requestMatchers("/doc/**", "/api-docs/**", "/swagger-ui/**", "/swagger-ui.html")
                         .permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/plan")
+                        .authenticated()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/plan/export")
+                        .authenticated()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/plan/changes")
+                        .authenticated()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/plan/events")
+                        .permitAll()
+                        // Streamed listings hold a database cursor for the whole response
+                        .requestMatchers(JwtFilter::isStreamRequest)
+                        .authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/v1/plan/{id}")
                         .permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/plan/user/{userId}")
                         .permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/plan/job/{jobId}")
                         .permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/plan/batch")
+                        .permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/v1/plan")
                         .authenticated()
                         .requestMatchers(HttpMethod.PUT, "/api/v1/plan")
@@ -118,6 +131,10 @@ public class SecurityConfig {
                         .authenticated()
                         .requestMatchers("/actuator/health/**")
                         .permitAll()
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**")
+                        .authenticated()
+                        .requestMatchers("/actuator/ingestion")
+                        .authenticated()
                 )
                 // Add JWT filter after UsernamePasswordAuthenticationFilter
                 .addFilterAfter(jwtFilter, UsernamePasswordAuthenticationFilter.class)
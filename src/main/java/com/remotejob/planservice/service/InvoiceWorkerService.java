@@ -2,22 +2,43 @@ package com.remotejob.planservice.service;
 
 import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
 import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
+import com.remotejob.planservice.dedup.PlanEventDeduplicator;
 import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.parking.ParkedStatusUpdateStore;
+import com.remotejob.planservice.repository.PlanUpsertResult;
 import com.remotejob.planservice.util.CorrelationContext;
+import com.remotejob.planservice.util.RawJson;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InvoiceWorkerService {
 
+    private static final Comparator<Plan> PARKING_LOCK_ORDER = Comparator.comparing(Plan::getUserId)
+            .thenComparing(Plan::getInvoiceId);
+
     private final PlanService planService;
+    private final ParkedStatusUpdateStore parkedStatusUpdates;
+    private final TransactionTemplate transactionTemplate;
+    private final PlanEventDeduplicator deduplicator;
 
     public void handleInvoiceStatusUpdate(InvoiceStatusUpdateEvent event) {
         Instant start = Instant.now();
@@ -49,7 +70,10 @@ public class InvoiceWorkerService {
             
             Optional<Plan> existing = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId);
             if (existing.isEmpty()) {
-                log.warn("⚠️  [INVOICE->PLAN] Plan not found | userId={} | invoiceId={} | Action: Plan may need to be created first", 
+                existing = parkUnlessCreated(event);
+            }
+            if (existing.isEmpty()) {
+                log.warn("⏸️  [INVOICE->PLAN] Plan not found, status update parked until the plan is created | userId={} | invoiceId={}", 
                         event.userId, event.invoiceId);
                 return;
             }
@@ -67,10 +91,7 @@ public class InvoiceWorkerService {
             String oldJobId = plan.getJobId();
             
             // Apply updates
-            if (event.status != null) plan.setStatus(event.status);
-            if (event.isActive != null) plan.setIsActive(event.isActive);
-            if (event.expiresAt != null) plan.setExpiresAt(event.expiresAt);
-            if (event.jobId != null) plan.setJobId(event.jobId);
+            applyStatusUpdate(plan, event);
 
             // Save updated plan
             log.info("🔄 [INVOICE->PLAN] Updating plan | planId={} | oldStatus={} | newStatus={} | oldIsActive={} | newIsActive={} | oldJobId={} | newJobId={}", 
@@ -91,9 +112,10 @@ public class InvoiceWorkerService {
                         saved.getId(), saved.getJobId());
             }
             
-        } catch (Exception ex) {
+        } catch (RuntimeException ex) {
             log.error("❌ [INVOICE->PLAN] Error updating plan | userId={} | invoiceId={} | error={}", 
-                    event.userId, event.invoiceId, ex.getMessage(), ex);
+                    event.userId, event.invoiceId, ex.getMessage());
+            throw ex;
         } finally {
             long durationMs = Duration.between(start, Instant.now()).toMillis();
             log.info("🎉 [INVOICE->PLAN] Status update completed | userId={} | invoiceId={} | duration={}ms", 
@@ -102,93 +124,185 @@ public class InvoiceWorkerService {
         }
     }
 
-    public void handlePlansToCreate(PlansToCreateEvent event) {
+    /**
+     * Handles a batch of plan creation requests with a single multi-row upsert keyed by
+     * (userId, invoiceId). Events failing validation are handed to {@code onRejected} and do not
+     * affect the rest of the batch; when several events target the same plan the last one wins.
+     * If the batch is refused by a data integrity violation the events are retried one by one so
+     * only the offending ones are rejected. Other database errors are propagated so the whole
+     * batch is redelivered.
+     *
+     * @param events     the events of the batch, in delivery order
+     * @param onRejected receives each event that cannot be applied together with the reason
+     */
+    public void handlePlansToCreateBatch(List<PlansToCreateEvent> events, BiConsumer<PlansToCreateEvent, String> onRejected) {
         Instant start = Instant.now();
-        
-        // Set correlation context
-        CorrelationContext.setInvoicePlanContext(event.userId, event.invoiceId);
-        if (event.id != null) {
-            CorrelationContext.setPlanId(event.id.toString());
+        log.info("📨 [INVOICE->PLAN] Plan creation batch received | size={}", events.size());
+
+        Map<String, PlansToCreateEvent> latestByKey = new LinkedHashMap<>();
+        for (PlansToCreateEvent event : events) {
+            String violation = validate(event);
+            if (violation != null) {
+                log.error("❌ [INVOICE->PLAN] Invalid plan creation request | userId={} | invoiceId={} | reason={}",
+                        event.userId, event.invoiceId, violation);
+                onRejected.accept(event, violation);
+                continue;
+            }
+            PlansToCreateEvent superseded = latestByKey.put(event.userId + "|" + event.invoiceId, event);
+            if (superseded != null) {
+                log.debug("🔁 [INVOICE->PLAN] Plan creation request superseded within batch | userId={} | invoiceId={}",
+                        event.userId, event.invoiceId);
+            }
         }
-        
+        if (latestByKey.isEmpty()) {
+            return;
+        }
+
+        List<KeyedEvent> accepted = latestByKey.values().stream()
+                .map(event -> new KeyedEvent(deduplicator.keyOf(event), event))
+                .toList();
+        Set<UUID> processed = deduplicator.findProcessed(keysOf(accepted));
+        if (!processed.isEmpty()) {
+            accepted = accepted.stream()
+                    .filter(keyed -> keyed.key() == null || !processed.contains(keyed.key()))
+                    .toList();
+            log.info("⏭️  [INVOICE->PLAN] Already processed plan creation requests skipped | count={}", processed.size());
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<PlanUpsertResult> saved;
         try {
-            log.info("📨 [INVOICE->PLAN] Plan creation request received | userId={} | invoiceId={} | jobId={}", 
-                    event.userId, event.invoiceId, event.jobId != null ? event.jobId : "NOT_PROVIDED");
-            log.debug("📋 [INVOICE->PLAN] Event payload | isActive={} | status={} | durationInDays={} | description={}", 
-                    event.isActive, event.status, event.durationInDays, event.description);
-            
-            if (event.jobId != null) {
-                log.info("📌 [PLAN-JOB] Job ID detected in plan creation request | jobId={} | invoiceId={} | userId={}", 
-                        event.jobId, event.invoiceId, event.userId);
-            } else {
-                log.warn("⚠️ [PLAN-JOB] No job ID provided in plan creation request | invoiceId={} | userId={} | This plan will not be linked to a specific job", 
-                        event.invoiceId, event.userId);
+            saved = upsertClaimed(accepted);
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("⚠️  [INVOICE->PLAN] Batch upsert refused, retrying plans individually | size={} | error={}",
+                    accepted.size(), ex.getMostSpecificCause().getMessage());
+            saved = new ArrayList<>();
+            for (KeyedEvent keyed : accepted) {
+                PlansToCreateEvent event = keyed.event();
+                try {
+                    saved.addAll(upsertClaimed(List.of(keyed)));
+                } catch (DataIntegrityViolationException eventEx) {
+                    String reason = eventEx.getMostSpecificCause().getMessage();
+                    log.error("❌ [INVOICE->PLAN] Plan rejected by the database | userId={} | invoiceId={} | error={}",
+                            event.userId, event.invoiceId, reason);
+                    onRejected.accept(event, reason);
+                }
             }
+        }
 
-            // Validate required fields
-            if (event.userId == null || event.invoiceId == null) {
-                log.error("❌ [INVOICE->PLAN] Missing required identifiers | userId={} | invoiceId={}", 
-                        event.userId, event.invoiceId);
-                return;
+        long inserted = saved.stream().filter(PlanUpsertResult::inserted).count();
+        long durationMs = Duration.between(start, Instant.now()).toMillis();
+        log.info("🎉 [INVOICE->PLAN] Plan creation batch completed | received={} | created={} | updated={} | duration={}ms",
+                events.size(), inserted, saved.size() - inserted, durationMs);
+    }
+
+    private String validate(PlansToCreateEvent event) {
+        if (event.userId == null || event.invoiceId == null) {
+            return "Missing required identifiers (userId, invoiceId)";
+        }
+        if (event.description == null || event.isActive == null || event.items == null
+                || event.status == null || event.durationInDays == null) {
+            return "Missing required fields (description, isActive, items, status, durationInDays)";
+        }
+        return null;
+    }
+
+    /**
+     * Claims the events in the processed events index and upserts the plans of those not processed
+     * yet, in one transaction; events without a key are always upserted. A single plan goes through
+     * the single-row upsert, several through the multi-row one.
+     *
+     * @return the plans written and whether each was inserted or updated
+     */
+    private List<PlanUpsertResult> upsertClaimed(List<KeyedEvent> events) {
+        return transactionTemplate.execute(tx -> {
+            Set<UUID> claimed = deduplicator.claim(keysOf(events));
+            List<Plan> plans = events.stream()
+                    .filter(keyed -> keyed.key() == null || claimed.contains(keyed.key()))
+                    // Parking locks are taken in key order so concurrent batches cannot deadlock on them
+                    .map(keyed -> toPlan(keyed.event()))
+                    .sorted(PARKING_LOCK_ORDER)
+                    .map(this::withParkedUpdate)
+                    .toList();
+            if (plans.isEmpty()) {
+                return List.of();
             }
+            return plans.size() == 1 ? List.of(planService.upsert(plans.get(0))) : planService.upsertAll(plans);
+        });
+    }
 
-            // Check if plan already exists
-            Optional<Plan> existingPlan = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId);
-            boolean isUpdate = existingPlan.isPresent();
-            
-            if (isUpdate) {
-                log.info("🔄 [INVOICE->PLAN] Plan already exists, will update | planId={} | userId={} | invoiceId={}", 
-                        existingPlan.get().getId(), event.userId, event.invoiceId);
-            } else {
-                log.info("🆕 [INVOICE->PLAN] Creating new plan | userId={} | invoiceId={}", 
-                        event.userId, event.invoiceId);
+    /**
+     * Parks the update unless its plan was created since it was looked up. The lookup and the park run
+     * under the invoice's parking lock, which plan creation also takes before taking parked updates,
+     * so a plan created concurrently (by this or another instance) either takes the parked update or
+     * is found here.
+     *
+     * @return the plan if it exists by now, empty if the update was parked
+     */
+    private Optional<Plan> parkUnlessCreated(InvoiceStatusUpdateEvent event) {
+        return transactionTemplate.execute(tx -> {
+            parkedStatusUpdates.lock(event.userId, event.invoiceId);
+            Optional<Plan> created = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId);
+            if (created.isEmpty()) {
+                parkedStatusUpdates.park(event);
             }
+            return created;
+        });
+    }
 
-            // Build plan object
-            Plan plan = new Plan();
-            plan.setId(event.id);
-            plan.setUserId(event.userId);
-            plan.setInvoiceId(event.invoiceId);
-            plan.setDescription(event.description);
-            plan.setIsActive(event.isActive);
-            plan.setItems(event.items);
-            plan.setStatus(event.status);
-            plan.setDurationInDays(event.durationInDays);
-            plan.setExpiresAt(event.expiresAt);
-            plan.setJobId(event.jobId);
-            plan.setMetadata(event.metadata);
-
-            // Save plan
-            log.info("💾 [INVOICE->PLAN] Saving plan | userId={} | invoiceId={} | jobId={} | isActive={} | status={} | hasMetadata={}", 
-                    event.userId, event.invoiceId, event.jobId != null ? event.jobId : "NULL",
-                    event.isActive, event.status, event.metadata != null);
-            
-            Plan saved = planService.createOrUpdate(plan);
-            CorrelationContext.setPlanId(saved.getId().toString());
-
-            log.info("✅ [INVOICE->PLAN] Plan {} successfully | planId={} | userId={} | invoiceId={} | jobId={} | isActive={} | status={}", 
-                    isUpdate ? "updated" : "created", 
-                    saved.getId(), saved.getUserId(), saved.getInvoiceId(), 
-                    saved.getJobId() != null ? saved.getJobId() : "NULL",
-                    saved.getIsActive(), saved.getStatus());
-            log.debug("📊 [INVOICE->PLAN] Plan details | durationInDays={} | expiresAt={} | itemCount={}", 
-                    saved.getDurationInDays(), saved.getExpiresAt(), 
-                    saved.getItems() != null && saved.getItems().isArray() ? saved.getItems().size() : 0);
-            
-            if (saved.getJobId() != null) {
-                log.info("📌 [PLAN-JOB] Plan successfully linked to job | planId={} | jobId={} | invoiceId={}", 
-                        saved.getId(), saved.getJobId(), saved.getInvoiceId());
+    /**
+     * Applies the status update parked for the plan's invoice, if any, under the invoice's parking lock.
+     * Must run in the transaction that writes the plan so the update is parked again if that write is
+     * rolled back, and the lock is held until the plan is visible.
+     */
+    private Plan withParkedUpdate(Plan plan) {
+        parkedStatusUpdates.lock(plan.getUserId(), plan.getInvoiceId());
+        parkedStatusUpdates.take(plan.getUserId(), plan.getInvoiceId()).ifPresent(parked -> {
+            applyStatusUpdate(plan, parked);
+            log.info("▶️  [INVOICE->PLAN] Parked status update applied to new plan | userId={} | invoiceId={} | status={} | isActive={}",
+                    plan.getUserId(), plan.getInvoiceId(), plan.getStatus(), plan.getIsActive());
+        });
+        return plan;
+    }
+
+    private void applyStatusUpdate(Plan plan, InvoiceStatusUpdateEvent event) {
+        if (event.status != null) plan.setStatus(event.status);
+        if (event.isActive != null) plan.setIsActive(event.isActive);
+        if (event.expiresAt != null) plan.setExpiresAt(event.expiresAt);
+        if (event.jobId != null) plan.setJobId(event.jobId);
+    }
+
+    private static Set<UUID> keysOf(List<KeyedEvent> events) {
+        Set<UUID> keys = new HashSet<>();
+        events.forEach(keyed -> {
+            if (keyed.key() != null) {
+                keys.add(keyed.key());
             }
-            
-        } catch (Exception ex) {
-            log.error("❌ [INVOICE->PLAN] Error creating/updating plan | userId={} | invoiceId={} | error={}", 
-                    event.userId, event.invoiceId, ex.getMessage(), ex);
-        } finally {
-            long durationMs = Duration.between(start, Instant.now()).toMillis();
-            log.info("🎉 [INVOICE->PLAN] Plan creation/update completed | userId={} | invoiceId={} | duration={}ms", 
-                    event.userId, event.invoiceId, durationMs);
-            CorrelationContext.clear();
-        }
+        });
+        return keys;
     }
 
+    private Plan toPlan(PlansToCreateEvent event) {
+        Plan plan = new Plan();
+        plan.setId(event.id);
+        plan.setUserId(event.userId);
+        plan.setInvoiceId(event.invoiceId);
+        plan.setDescription(event.description);
+        plan.setIsActive(event.isActive);
+        plan.setItems(RawJson.of(event.items));
+        plan.setStatus(event.status);
+        plan.setDurationInDays(event.durationInDays);
+        plan.setExpiresAt(event.expiresAt);
+        plan.setJobId(event.jobId);
+        plan.setMetadata(RawJson.of(event.metadata));
+        return plan;
+    }
+
+    /**
+     * A plan creation event with its processed events key, null if the event has no id.
+     */
+    private record KeyedEvent(UUID key, PlansToCreateEvent event) {
+    }
 }
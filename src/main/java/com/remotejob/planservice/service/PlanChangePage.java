@@ -0,0 +1,15 @@
+package com.remotejob.planservice.service;
+
+import com.remotejob.planservice.repository.PlanChange;
+
+import java.util.List;
+
+/**
+ * A batch of the plan change feed.
+ *
+ * @param changes    the changes in this batch
+ * @param nextCursor the opaque cursor to read the changes after this batch; never null
+ * @param hasMore    whether more changes were already available when this batch was read
+ */
+public record PlanChangePage(List<PlanChange> changes, String nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,105 @@
+package com.remotejob.planservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.repository.PlanExportFilter;
+import com.remotejob.planservice.repository.PlanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.remotejob.planservice.util.JdbcTimestamps.fromDb;
+
+/**
+ * Exports plans as newline-delimited JSON (one plan object per line).
+ * <p>
+ * Rows are read from a forward-only JDBC cursor and written with Jackson's streaming
+ * generator as they arrive; JSONB columns are copied verbatim as raw JSON. Nothing is
+ * accumulated, so heap use does not grow with the number of exported rows.
+ */
+@Slf4j
+@Service
+public class PlanExportService {
+
+    private final PlanRepository planRepository;
+    private final JsonFactory jsonFactory;
+
+    public PlanExportService(PlanRepository planRepository, ObjectMapper objectMapper) {
+        this.planRepository = planRepository;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Writes every plan matching the filter to the output stream as NDJSON.
+     *
+     * @param filter the filters to apply
+     * @param out    the stream to write to; it is flushed but not closed
+     * @return the number of exported plans
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public long export(PlanExportFilter filter, OutputStream out) throws IOException {
+        Instant start = Instant.now();
+        log.info("📤 [PLAN-EXPORT] Export started | status={} | isActive={} | expiresFrom={} | expiresTo={}",
+                filter.status(), filter.isActive(), filter.expiresFrom(), filter.expiresTo());
+
+        long[] count = {0};
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try {
+                planRepository.exportPlans(filter, resultSet -> {
+                    writePlan(generator, resultSet);
+                    count[0]++;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+        out.flush();
+
+        log.info("✅ [PLAN-EXPORT] Export completed | plans={} | duration={}ms",
+                count[0], Duration.between(start, Instant.now()).toMillis());
+        return count[0];
+    }
+
+    private void writePlan(JsonGenerator generator, ResultSet row) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("id", row.getString("id"));
+            generator.writeStringField("userId", row.getString("user_id"));
+            generator.writeStringField("invoiceId", row.getString("invoice_id"));
+            generator.writeStringField("description", row.getString("description"));
+            generator.writeBooleanField("isActive", row.getBoolean("is_active"));
+            writeRawJsonField(generator, "items", row.getString("items"));
+            generator.writeStringField("status", row.getString("status"));
+            generator.writeNumberField("durationInDays", row.getInt("duration_in_days"));
+            Instant expiresAt = fromDb(row, "expires_at");
+            generator.writeStringField("expiresAt", expiresAt != null ? expiresAt.toString() : null);
+            generator.writeStringField("jobId", row.getString("job_id"));
+            writeRawJsonField(generator, "metadata", row.getString("metadata"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeRawJsonField(JsonGenerator generator, String name, String rawJson) throws IOException {
+        generator.writeFieldName(name);
+        if (rawJson == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(rawJson);
+        }
+    }
+}
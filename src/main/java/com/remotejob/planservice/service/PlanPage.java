@@ -0,0 +1,14 @@
+package com.remotejob.planservice.service;
+
+import com.remotejob.planservice.entity.Plan;
+
+import java.util.List;
+
+/**
+ * A keyset page of plans.
+ *
+ * @param plans      the plans in this page
+ * @param nextCursor the opaque cursor to the next page, or null if this is the last page
+ */
+public record PlanPage(List<Plan> plans, String nextCursor) {
+}
@@ -1,17 +1,47 @@
 package com.remotejob.planservice.service;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.remotejob.planservice.cache.PlanCache;
 import com.remotejob.planservice.dto.PlanPatchDto;
 import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.index.JobDecoration;
+import com.remotejob.planservice.index.JobDecorationIndex;
+import com.remotejob.planservice.index.StickyPlanIndex;
+import com.remotejob.planservice.repository.PlanChange;
+import com.remotejob.planservice.repository.PlanPatch;
 import com.remotejob.planservice.repository.PlanRepository;
+import com.remotejob.planservice.repository.PlanSummaryView;
+import com.remotejob.planservice.repository.PlanUpsertResult;
+import com.remotejob.planservice.util.ChangeCursor;
 import com.remotejob.planservice.util.CorrelationContext;
+import com.remotejob.planservice.util.PlanCursor;
+import com.remotejob.planservice.util.PlanFields;
+import com.remotejob.planservice.util.RawJson;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing job-related operations. This class interacts with the
@@ -22,10 +52,24 @@ import java.util.UUID;
 @Service
 public class PlanService {
     private final PlanRepository planRepository;
+    private final PlanCache planCache;
+    private final StickyPlanIndex stickyPlanIndex;
+    private final JobDecorationIndex jobDecorationIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final int maxPageLimit;
 
 
-    public PlanService(PlanRepository planRepository) {
+    public PlanService(PlanRepository planRepository, PlanCache planCache, StickyPlanIndex stickyPlanIndex,
+                       JobDecorationIndex jobDecorationIndex, ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                       @Value("${app.plan.page.max-limit:500}") int maxPageLimit) {
         this.planRepository = planRepository;
+        this.planCache = planCache;
+        this.stickyPlanIndex = stickyPlanIndex;
+        this.jobDecorationIndex = jobDecorationIndex;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.maxPageLimit = maxPageLimit;
     }
 
     /**
@@ -42,10 +86,16 @@ public class PlanService {
 
     /**
      * Creates a new job or updates an existing one in the repository.
+     * Publishes a {@link PlanChangedEvent} for the saved plan.
+     * A plan read from the repository is saved only if it was not modified since (optimistic lock);
+     * a plan with an id but without a version replaces the current plan whatever its version, with
+     * the plan's row locked from reading its version to the commit so a concurrent writer cannot
+     * turn the replacement into an optimistic lock failure.
      *
      * @param plan The Job object to be created or updated.
      * @return The saved Job object.
      */
+    @Transactional
     public Plan createOrUpdate(Plan plan) {
         boolean isNew = (plan.getId() == null);
         
@@ -57,7 +107,11 @@ public class PlanService {
                     plan.getId(), plan.getUserId(), plan.getInvoiceId(), plan.getIsActive());
         }
         
+        if (!isNew && plan.getVersion() == null) {
+            plan.setVersion(this.planRepository.lockVersionById(plan.getId()).orElse(0L));
+        }
         Plan saved = this.planRepository.save(plan);
+        this.eventPublisher.publishEvent(PlanChangedEvent.upserted(saved));
         CorrelationContext.setPlanId(saved.getId().toString());
         
         if (isNew) {
@@ -71,26 +125,97 @@ public class PlanService {
         return saved;
     }
 
+    /**
+     * Inserts a plan or updates the existing plan with the same (userId, invoiceId) in a single
+     * statement, so concurrent writers cannot create duplicates. Publishes a {@link PlanChangedEvent}.
+     *
+     * @param plan The plan to write.
+     * @return The resulting plan and whether it was inserted or updated.
+     */
+    @Transactional
+    public PlanUpsertResult upsert(Plan plan) {
+        PlanUpsertResult result = this.planRepository.upsertPlan(plan);
+        this.eventPublisher.publishEvent(PlanChangedEvent.upserted(result.plan()));
+        log.info("✅ [PLAN] Plan {} | planId={} | userId={} | invoiceId={}",
+                result.inserted() ? "inserted" : "updated", result.plan().getId(),
+                result.plan().getUserId(), result.plan().getInvoiceId());
+        return result;
+    }
+
+    /**
+     * Inserts or updates many plans, keyed by (userId, invoiceId), with multi-row upsert statements
+     * in a single transaction. Publishes a {@link PlanChangedEvent} for each resulting plan.
+     *
+     * @param plans The plans to write; their (userId, invoiceId) keys must be distinct.
+     * @return The resulting plans and whether each was inserted or updated.
+     */
+    @Transactional
+    public List<PlanUpsertResult> upsertAll(List<Plan> plans) {
+        log.debug("💾 [PLAN] Upserting plans | count={}", plans.size());
+        List<PlanUpsertResult> results = this.planRepository.upsertPlans(plans);
+        results.forEach(result -> this.eventPublisher.publishEvent(PlanChangedEvent.upserted(result.plan())));
+        long inserted = results.stream().filter(PlanUpsertResult::inserted).count();
+        log.info("✅ [PLAN] Plans upserted | inserted={} | updated={}", inserted, results.size() - inserted);
+        return results;
+    }
+
     /**
      * Deletes a job by its unique identifier.
+     * Publishes a {@link PlanChangedEvent} carrying the last state of the deleted plan.
      *
      * @param id The UUID of the job to delete.
      */
+    @Transactional
     public void delete(UUID id) {
         log.info("🗑️  [PLAN] Deleting plan | planId={}", id);
-        this.planRepository.deleteById(id);
+        Optional<Plan> existing = this.planRepository.findById(id);
+        if (existing.isEmpty()) {
+            log.warn("⚠️  [PLAN] Plan not found for delete | planId={}", id);
+            return;
+        }
+        this.planRepository.delete(existing.get());
+        this.eventPublisher.publishEvent(PlanChangedEvent.deleted(existing.get()));
         log.info("✅ [PLAN] Plan deleted | planId={}", id);
     }
 
     /**
-     * Retrieves a job by its unique identifier.
+     * Deactivates a batch of active plans whose expiration date has passed, giving them the given
+     * status, in a single statement. Plans being deactivated by another instance are skipped.
+     * Publishes a {@link PlanChangedEvent} for each deactivated plan.
+     *
+     * @param now    the expiry cutoff
+     * @param status the status to give the deactivated plans
+     * @param limit  the maximum number of plans to deactivate
+     * @return the deactivated plans
+     */
+    @Transactional
+    public List<Plan> deactivateExpired(Instant now, String status, int limit) {
+        List<Plan> deactivated = this.planRepository.deactivateExpired(now, status, limit);
+        deactivated.forEach(plan -> this.eventPublisher.publishEvent(PlanChangedEvent.upserted(plan)));
+        log.debug("⏰ [PLAN] Expired plans deactivated | count={} | status={}", deactivated.size(), status);
+        return deactivated;
+    }
+
+    /**
+     * Retrieves the earliest expiration date among the active plans that have not expired yet.
+     *
+     * @param now the current time
+     * @return the next expiration date, or empty if no active plan expires after now
+     */
+    public Optional<Instant> getNextExpiryAfter(Instant now) {
+        return this.planRepository.findNextExpiryAfter(now);
+    }
+
+    /**
+     * Retrieves a job by its unique identifier. Lookups are served from the
+     * {@link PlanCache} and fall through to the repository on a miss.
      *
      * @param id The UUID of the job to retrieve.
      * @return An Optional containing the Job if found, or an empty Optional if not found.
      */
     public Optional<Plan> getById(UUID id) {
         log.debug("🔍 [PLAN] Looking up plan by ID | planId={}", id);
-        Optional<Plan> plan = this.planRepository.findById(id);
+        Optional<Plan> plan = this.planCache.get(id, this.planRepository::findById);
         if (plan.isPresent()) {
             log.debug("✅ [PLAN] Plan found | planId={} | userId={} | invoiceId={}", 
                     id, plan.get().getUserId(), plan.get().getInvoiceId());
@@ -100,6 +225,49 @@ public class PlanService {
         return plan;
     }
 
+    /**
+     * Retrieves a plan by its unique identifier for a sparse fieldset. A cached plan is returned
+     * as is; otherwise only the columns of the narrowest projection covering the fieldset are
+     * selected, and the full entity is loaded only when a JSONB field is requested.
+     *
+     * @param id     The UUID of the plan to retrieve.
+     * @param fields The requested fields.
+     * @return An Optional containing either the {@link Plan} or a {@link PlanSummaryView} projection.
+     */
+    public Optional<?> getById(UUID id, PlanFields fields) {
+        Optional<Plan> cached = this.planCache.getIfPresent(id);
+        Class<? extends PlanSummaryView> viewType = fields.viewType();
+        if (cached.isPresent() || viewType == null) {
+            return cached.isPresent() ? cached : getById(id);
+        }
+        log.debug("🔍 [PLAN] Looking up plan projection by ID | planId={} | view={}", id, viewType.getSimpleName());
+        return this.planRepository.findProjectedById(id, viewType);
+    }
+
+    /**
+     * Retrieves the plans of a user as a projection, selecting only the projected columns.
+     *
+     * @param userId The ID of the user whose plans are to be retrieved.
+     * @param type   The projection type.
+     * @return A list of projections of the plans associated with the specified user ID.
+     */
+    public <T> List<T> getByUserId(String userId, Class<T> type) {
+        log.debug("🔍 [PLAN] Looking up plan projections by user | userId={} | view={}", userId, type.getSimpleName());
+        return this.planRepository.findProjectedByUserId(userId, type);
+    }
+
+    /**
+     * Retrieves the plans of a job as a projection, selecting only the projected columns.
+     *
+     * @param jobId The ID of the job whose plans are to be retrieved.
+     * @param type  The projection type.
+     * @return A list of projections of the plans associated with the specified job ID.
+     */
+    public <T> List<T> getByJobId(String jobId, Class<T> type) {
+        log.debug("🔍 [PLAN] Looking up plan projections by job | jobId={} | view={}", jobId, type.getSimpleName());
+        return this.planRepository.findProjectedByJobId(jobId, type);
+    }
+
     /**
      * Retrieves a list of jobs associated with a specific user ID.
      *
@@ -108,11 +276,63 @@ public class PlanService {
      */
     public List<Plan> getByUserId(String userId) {
         log.debug("🔍 [PLAN] Looking up plans by user | userId={}", userId);
-        List<Plan> plans = this.planRepository.findByUserId(userId);
+        List<Plan> plans = this.planRepository.findByUserIdOrderById(userId);
         log.debug("📋 [PLAN] Found {} plans for user | userId={} | planCount={}", userId, plans.size());
         return plans;
     }
 
+    /**
+     * Retrieves the plans with the given ids. Cached plans are served from the {@link PlanCache};
+     * the remaining ids are resolved with a single query.
+     *
+     * @param ids The UUIDs of the plans to retrieve.
+     * @return The plans found, keyed by id. Ids that were not found are absent.
+     */
+    public Map<UUID, Plan> getByIds(Collection<UUID> ids) {
+        Map<UUID, Plan> plans = new HashMap<>();
+        Set<UUID> misses = new LinkedHashSet<>();
+        for (UUID id : ids) {
+            planCache.getIfPresent(id).ifPresentOrElse(plan -> plans.put(id, plan), () -> misses.add(id));
+        }
+        if (!misses.isEmpty()) {
+            for (Plan plan : this.planRepository.findAllById(misses)) {
+                planCache.put(plan);
+                plans.put(plan.getId(), plan);
+            }
+        }
+        log.debug("🔍 [PLAN] Batch lookup by ID | requested={} | cacheHits={} | found={}",
+                ids.size(), ids.size() - misses.size(), plans.size());
+        return plans;
+    }
+
+    /**
+     * Retrieves the plans of the given invoices with a single query.
+     *
+     * @param invoiceIds The invoice IDs whose plans are to be retrieved.
+     * @param maxRows    The maximum number of plans to load.
+     * @return At most {@code maxRows} plans found, grouped by invoice ID. Invoices without plans are absent.
+     */
+    public Map<UUID, List<Plan>> getByInvoiceIds(Collection<UUID> invoiceIds, int maxRows) {
+        Map<UUID, List<Plan>> plans = this.planRepository.findByInvoiceIdIn(invoiceIds, Limit.of(maxRows)).stream()
+                .collect(Collectors.groupingBy(Plan::getInvoiceId));
+        log.debug("🔍 [PLAN] Batch lookup by invoice | requested={} | found={}", invoiceIds.size(), plans.size());
+        return plans;
+    }
+
+    /**
+     * Retrieves the plans of the given users with a single query.
+     *
+     * @param userIds The user IDs whose plans are to be retrieved.
+     * @param maxRows The maximum number of plans to load.
+     * @return At most {@code maxRows} plans found, grouped by user ID. Users without plans are absent.
+     */
+    public Map<String, List<Plan>> getByUserIds(Collection<String> userIds, int maxRows) {
+        Map<String, List<Plan>> plans = this.planRepository.findByUserIdIn(userIds, Limit.of(maxRows)).stream()
+                .collect(Collectors.groupingBy(Plan::getUserId));
+        log.debug("🔍 [PLAN] Batch lookup by user | requested={} | found={}", userIds.size(), plans.size());
+        return plans;
+    }
+
     /**
      * Retrieves a plan by userId and invoiceId.
      */
@@ -143,108 +363,299 @@ public class PlanService {
 
     /**
      * Retrieves all active sticky plans that haven't expired.
-     * Sticky plans are plans with types 5 (24h), 6 (1 week), or 7 (1 month) in metadata.
+     * Sticky plans are plans with a sticky type: 5 (24h), 6 (1 week) or 7 (1 month).
+     * Served from the in-memory {@link StickyPlanIndex}; no database access happens on this path.
      *
-     * @return A list of active sticky plans ordered by expiration date (longest duration first)
+     * @return A list of active sticky plans ranked by tier and expiration date
      */
     public List<Plan> getActiveStickyPlans() {
-        log.info("🔍 [PLAN] Fetching active sticky plans");
-        
-        // Fetch all active plans with job IDs that haven't expired
-        List<Plan> activePlans = this.planRepository
-                .findByIsActiveAndExpiresAtAfterAndJobIdIsNotNullOrderByExpiresAtDesc(
-                        true, 
-                        Instant.now()
-                );
-        
-        log.info("📋 [PLAN] Found {} active plans with job IDs (before filtering by sticky type)", activePlans.size());
-        
-        // Filter by sticky plan IDs (5, 6, 7) in metadata
-        List<Plan> stickyPlans = activePlans.stream()
-                .filter(plan -> {
-                    if (plan.getMetadata() == null) {
-                        log.debug("⚠️ [PLAN] Plan {} has no metadata", plan.getId());
-                        return false;
-                    }
-                    
-                    // Check if metadata contains plan id 5, 6, or 7
-                    JsonNode idNode = plan.getMetadata().get("id");
-                    if (idNode != null && idNode.isNumber()) {
-                        int planId = idNode.asInt();
-                        boolean isSticky = planId == 5 || planId == 6 || planId == 7;
-                        if (isSticky) {
-                            log.debug("✅ [PLAN] Plan {} is sticky (type {}), jobId={}", plan.getId(), planId, plan.getJobId());
-                        }
-                        return isSticky;
-                    }
-                    
-                    return false;
-                })
-                .toList();
-        
-        log.info("✅ [PLAN] Found {} active sticky plans (filtered from {} total active plans)", 
-                stickyPlans.size(), activePlans.size());
-        
-        // Log each sticky plan for debugging
-        stickyPlans.forEach(plan -> {
-            JsonNode idNode = plan.getMetadata().get("id");
-            int planType = idNode != null && idNode.isNumber() ? idNode.asInt() : -1;
-            log.info("📌 [PLAN] Sticky plan: id={}, type={}, jobId={}, expiresAt={}", 
-                    plan.getId(), planType, plan.getJobId(), plan.getExpiresAt());
-        });
-        
+        List<Plan> stickyPlans = this.stickyPlanIndex.getActive();
+        log.debug("✅ [PLAN] Found {} active sticky plans", stickyPlans.size());
         return stickyPlans;
     }
 
     /**
-     * Partially updates a plan with the non-null fields provided in the patch DTO.
+     * Retrieves the job board decoration of each given job from its highest-tier active plan.
+     * Served from the in-memory {@link JobDecorationIndex}; no database access happens on this path.
      *
-     * @param id    the plan id to update
-     * @param patch the fields to apply (only non-null values will be updated)
-     * @return the updated plan, or empty if not found
+     * @param jobIds The job IDs to decorate.
+     * @return The decorations keyed by job ID, in request order; jobs without an active plan are omitted.
      */
-    public Optional<Plan> partialUpdate(UUID id, PlanPatchDto patch) {
-        log.info("🔄 [PLAN] Partial update requested | planId={}", id);
-        
-        Optional<Plan> existingOpt = planRepository.findById(id);
-        if (existingOpt.isEmpty()) {
-            log.warn("⚠️  [PLAN] Plan not found for partial update | planId={}", id);
+    public Map<String, JobDecoration> getJobDecorations(Collection<String> jobIds) {
+        Map<String, JobDecoration> decorations = this.jobDecorationIndex.getDecorations(jobIds);
+        log.debug("🏷️  [PLAN] Resolved job decorations | requested={} | decorated={}", jobIds.size(), decorations.size());
+        return decorations;
+    }
+
+    /**
+     * Partially updates a plan with the non-null fields provided in the patch DTO, in a single
+     * statement. With an expected version the update is a compare-and-set: it only applies if the
+     * plan was not modified since the client read that version.
+     *
+     * @param id              the plan id to update
+     * @param patch           the fields to apply (only non-null values will be updated)
+     * @param expectedVersion the version the plan must be at, or null to update any version
+     * @return the updated plan, or empty if not found or no longer at the expected version
+     * @throws IllegalArgumentException if a document is both replaced and patched, a merge patch is
+     *                                  not an object or a path is not a valid JSON Pointer
+     */
+    @Transactional
+    public Optional<Plan> partialUpdate(UUID id, PlanPatchDto patch, Long expectedVersion) {
+        log.info("🔄 [PLAN] Partial update requested | planId={} | expectedVersion={}", id, expectedVersion);
+
+        PlanPatch changes = new PlanPatch(patch.description, patch.isActive,
+                documentPatch("items", patch.items, patch.itemsMergePatch, patch.itemsPaths),
+                patch.status, patch.durationInDays, patch.expiresAt,
+                documentPatch("metadata", null, patch.metadataMergePatch, patch.metadataPaths));
+        log.info("💾 [PLAN] Applying partial update | planId={} | changes={}", id, describe(changes));
+        Optional<Plan> saved = planRepository.patchPlan(id, changes, expectedVersion);
+        if (saved.isEmpty()) {
+            if (expectedVersion != null) {
+                log.warn("⚠️  [PLAN] Plan not found at expected version for partial update | planId={} | expectedVersion={}",
+                        id, expectedVersion);
+            } else {
+                log.warn("⚠️  [PLAN] Plan not found for partial update | planId={}", id);
+            }
             return Optional.empty();
         }
-        
-        Plan plan = existingOpt.get();
+
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(PlanChangedEvent.upserted(saved.get()));
+        }
+        log.info("✅ [PLAN] Partial update completed | planId={} | version={} | isActive={} | status={}",
+                saved.get().getId(), saved.get().getVersion(), saved.get().getIsActive(), saved.get().getStatus());
+        return saved;
+    }
+
+    /**
+     * Retrieves a keyset page of all plans.
+     *
+     * @param limit  the maximum number of plans to return (capped at the configured maximum)
+     * @param cursor the opaque cursor returned by the previous page, or null for the first page
+     * @return the page of plans and the cursor to the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PlanPage getPage(int limit, String cursor) {
+        log.debug("📋 [PLAN] Fetching page of all plans | limit={}", limit);
+        return page(limit, cursor, planRepository::findUnlimitedPage, planRepository::findDatedPage);
+    }
+
+    /**
+     * Retrieves a keyset page of the plans associated with a specific user ID.
+     *
+     * @param userId The ID of the user whose plans are to be retrieved.
+     * @param limit  the maximum number of plans to return (capped at the configured maximum)
+     * @param cursor the opaque cursor returned by the previous page, or null for the first page
+     * @return the page of plans and the cursor to the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PlanPage getPageByUserId(String userId, int limit, String cursor) {
+        log.debug("🔍 [PLAN] Fetching page of plans by user | userId={} | limit={}", userId, limit);
+        return page(limit, cursor,
+                (id, pageable) -> planRepository.findUnlimitedPageByUserId(userId, id, pageable),
+                (expiresAt, id, pageable) -> planRepository.findDatedPageByUserId(userId, expiresAt, id, pageable));
+    }
+
+    /**
+     * Retrieves a keyset page of the plans associated with a specific job ID.
+     *
+     * @param jobId  The ID of the job whose plans are to be retrieved.
+     * @param limit  the maximum number of plans to return (capped at the configured maximum)
+     * @param cursor the opaque cursor returned by the previous page, or null for the first page
+     * @return the page of plans and the cursor to the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PlanPage getPageByJobId(String jobId, int limit, String cursor) {
+        log.debug("🔍 [PLAN] Fetching page of plans by job | jobId={} | limit={}", jobId, limit);
+        return page(limit, cursor,
+                (id, pageable) -> planRepository.findUnlimitedPageByJobId(jobId, id, pageable),
+                (expiresAt, id, pageable) -> planRepository.findDatedPageByJobId(jobId, expiresAt, id, pageable));
+    }
+
+    /**
+     * Retrieves the plan changes after a change feed cursor: plans inserted or updated since, with
+     * their current state, and tombstones of plans deleted since.
+     *
+     * @param limit  the maximum number of changes to return (capped at the configured maximum)
+     * @param cursor the opaque cursor returned by the previous call, or null to read from the beginning
+     * @return the changes and the cursor to pass on the next call
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PlanChangePage getChanges(int limit, String cursor) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageLimit));
+        ChangeCursor after = ChangeCursor.decode(cursor);
+        log.debug("🔁 [PLAN] Fetching plan changes | after={} | limit={}", after, pageSize);
+        List<PlanChange> rows = planRepository.findChangesAfter(after, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<PlanChange> changes = hasMore ? rows.subList(0, pageSize) : rows;
+        ChangeCursor next = changes.isEmpty() ? after : changes.get(changes.size() - 1).cursor();
+        return new PlanChangePage(List.copyOf(changes), next.encode(), hasMore);
+    }
+
+    /**
+     * Streams all plans to the consumer through a server-side cursor.
+     * Each plan is detached after being consumed so memory stays constant.
+     *
+     * @param consumer receives each plan in turn
+     * @return the number of plans streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamAll(Consumer<Plan> consumer) {
+        log.debug("📋 [PLAN] Streaming all plans");
+        return stream(planRepository.streamAll(), consumer);
+    }
+
+    /**
+     * Streams the plans of a user to the consumer through a server-side cursor.
+     *
+     * @param userId   The ID of the user whose plans are to be streamed.
+     * @param consumer receives each plan in turn
+     * @return the number of plans streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamByUserId(String userId, Consumer<Plan> consumer) {
+        log.debug("🔍 [PLAN] Streaming plans by user | userId={}", userId);
+        return stream(planRepository.streamByUserId(userId), consumer);
+    }
+
+    /**
+     * Streams the plans of a job to the consumer through a server-side cursor.
+     *
+     * @param jobId    The ID of the job whose plans are to be streamed.
+     * @param consumer receives each plan in turn
+     * @return the number of plans streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamByJobId(String jobId, Consumer<Plan> consumer) {
+        log.debug("🔍 [PLAN] Streaming plans by job | jobId={}", jobId);
+        return stream(planRepository.streamByJobId(jobId), consumer);
+    }
+
+    private long stream(Stream<Plan> plans, Consumer<Plan> consumer) {
+        long count = 0;
+        try (plans) {
+            for (Plan plan : (Iterable<Plan>) plans::iterator) {
+                consumer.accept(plan);
+                entityManager.detach(plan);
+                count++;
+            }
+        }
+        log.debug("📋 [PLAN] Streamed {} plans", count);
+        return count;
+    }
+
+    private static String describe(PlanPatch patch) {
         StringBuilder changes = new StringBuilder();
-        
-        if (patch.description != null) {
+        if (patch.description() != null) {
             changes.append("description, ");
-            plan.setDescription(patch.description);
         }
-        if (patch.isActive != null) {
-            changes.append("isActive(").append(patch.isActive).append("), ");
-            plan.setIsActive(patch.isActive);
+        if (patch.isActive() != null) {
+            changes.append("isActive(").append(patch.isActive()).append("), ");
         }
-        if (patch.items != null) {
-            changes.append("items, ");
-            plan.setItems(patch.items);
+        if (patch.items() != null) {
+            changes.append("items").append(describe(patch.items())).append(", ");
         }
-        if (patch.status != null) {
-            changes.append("status(").append(patch.status).append("), ");
-            plan.setStatus(patch.status);
+        if (patch.status() != null) {
+            changes.append("status(").append(patch.status()).append("), ");
         }
-        if (patch.durationInDays != null) {
-            changes.append("durationInDays(").append(patch.durationInDays).append("), ");
-            plan.setDurationInDays(patch.durationInDays);
+        if (patch.durationInDays() != null) {
+            changes.append("durationInDays(").append(patch.durationInDays()).append("), ");
         }
-        if (patch.expiresAt != null) {
+        if (patch.expiresAt() != null) {
             changes.append("expiresAt, ");
-            plan.setExpiresAt(patch.expiresAt);
         }
-        
-        log.info("💾 [PLAN] Applying partial update | planId={} | changes={}", id, changes.toString());
-        Plan saved = planRepository.save(plan);
-        log.info("✅ [PLAN] Partial update completed | planId={} | isActive={} | status={}", 
-                saved.getId(), saved.getIsActive(), saved.getStatus());
-        
-        return Optional.of(saved);
+        if (patch.metadata() != null) {
+            changes.append("metadata").append(describe(patch.metadata())).append(", ");
+        }
+        return changes.toString();
+    }
+
+    private static String describe(PlanPatch.DocumentPatch patch) {
+        if (patch.replacement() != null) {
+            return "";
+        }
+        return "(" + (patch.mergePatch() != null ? "merge" : "")
+                + (patch.mergePatch() != null && !patch.paths().isEmpty() ? "+" : "")
+                + (patch.paths().isEmpty() ? "" : patch.paths().size() + " paths") + ")";
+    }
+
+    /**
+     * Builds the changes to a JSONB document from its replacement, merge patch and path updates
+     * keyed by JSON Pointer.
+     *
+     * @return the changes, or null if the document is left unchanged
+     */
+    private static PlanPatch.DocumentPatch documentPatch(String name, JsonNode replacement, JsonNode mergePatch,
+                                                        Map<String, JsonNode> paths) {
+        boolean replaced = replacement != null && !replacement.isNull();
+        boolean merged = mergePatch != null && !mergePatch.isNull();
+        boolean pathsUpdated = paths != null && !paths.isEmpty();
+        if (replaced && (merged || pathsUpdated)) {
+            throw new IllegalArgumentException(name + " cannot be replaced and patched in the same request");
+        }
+        if (replaced) {
+            return PlanPatch.DocumentPatch.replace(RawJson.of(replacement));
+        }
+        if (!merged && !pathsUpdated) {
+            return null;
+        }
+        if (merged && !mergePatch.isObject()) {
+            throw new IllegalArgumentException(name + "MergePatch must be a JSON object");
+        }
+        List<PlanPatch.PathUpdate> updates = new ArrayList<>();
+        if (pathsUpdated) {
+            paths.forEach((pointer, value) -> updates.add(new PlanPatch.PathUpdate(
+                    segments(name, pointer), value == null || value.isNull() ? null : RawJson.of(value))));
+        }
+        return new PlanPatch.DocumentPatch(null, merged ? RawJson.of(mergePatch) : null, updates);
+    }
+
+    private static List<String> segments(String name, String pointer) {
+        List<String> segments = new ArrayList<>();
+        try {
+            for (JsonPointer remaining = JsonPointer.compile(pointer); !remaining.matches(); remaining = remaining.tail()) {
+                segments.add(remaining.getMatchingProperty());
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid JSON Pointer in " + name + "Paths: " + pointer, ex);
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("The root of " + name + " cannot be a path; replace or merge the document instead");
+        }
+        return segments;
+    }
+
+    /**
+     * Builds a keyset page: unlimited plans first (by id), then dated plans (by expiresAt and id).
+     * One extra row is fetched to know whether a next page exists.
+     */
+    private PlanPage page(int limit, String cursorToken, UnlimitedPageQuery unlimitedQuery, DatedPageQuery datedQuery) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageLimit));
+        PlanCursor cursor = PlanCursor.decode(cursorToken);
+
+        List<Plan> rows = new ArrayList<>(pageSize + 1);
+        if (cursor.isUnlimitedPhase()) {
+            rows.addAll(unlimitedQuery.fetch(cursor.id(), PageRequest.of(0, pageSize + 1)));
+            cursor = PlanCursor.START_DATED;
+        }
+        if (rows.size() <= pageSize) {
+            int remaining = pageSize + 1 - rows.size();
+            rows.addAll(datedQuery.fetch(cursor.expiresAt(), cursor.id(), PageRequest.of(0, remaining)));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Plan> plans = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? PlanCursor.after(plans.get(plans.size() - 1)).encode() : null;
+        return new PlanPage(List.copyOf(plans), nextCursor);
+    }
+
+    @FunctionalInterface
+    private interface UnlimitedPageQuery {
+        List<Plan> fetch(UUID afterId, Pageable pageable);
+    }
+
+    @FunctionalInterface
+    private interface DatedPageQuery {
+        List<Plan> fetch(Instant beforeExpiresAt, UUID beforeId, Pageable pageable);
     }
 }
@@ -0,0 +1,221 @@
+package com.remotejob.planservice.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.dto.PlanChangeDto;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.mapper.PlanMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Server-Sent Events fan-out of plan changes backing {@code /api/v1/plan/events}.
+ * <p>
+ * Subscribers filter by user, job or both and are indexed by that key, so a change is only
+ * matched against the streams of its own user and job. Changes are taken from the
+ * {@link PlanChangedEvent}s published by {@code PlanService} once the write has committed,
+ * serialized once and queued on every matching subscriber's bounded buffer (dropping the oldest
+ * frame when a client reads too slowly). Frames are sent on virtual threads that only exist while
+ * a subscriber has frames waiting; an idle stream costs its emitter and an empty buffer. A
+ * periodic keep-alive comment keeps proxies from closing idle streams and detects clients that
+ * went away.
+ * <p>
+ * Only changes written by this instance are streamed. {@code plan.events.subscribers} reports the
+ * open streams and {@code plan.events.dropped} the frames dropped from full buffers.
+ */
+@Slf4j
+@Component
+public class PlanEventStream {
+
+    private final PlanMapper planMapper;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final Map<String, Set<PlanEventSubscriber>> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<PlanEventSubscriber>> byJob = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService deliveryExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("plan-events-", 0).factory());
+    private final Counter droppedCounter;
+
+    public PlanEventStream(PlanMapper planMapper,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.plan.events.buffer-size:32}") int bufferSize,
+                           @Value("${app.plan.events.timeout:PT30M}") Duration timeout,
+                           @Value("${app.plan.events.max-subscribers:50000}") int maxSubscribers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("app.plan.events.buffer-size must be at least 1");
+        }
+        this.planMapper = planMapper;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        this.droppedCounter = Counter.builder("plan.events.dropped")
+                .description("Plan events dropped from the buffer of a slow subscriber")
+                .register(meterRegistry);
+        Gauge.builder("plan.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open plan event streams")
+                .register(meterRegistry);
+        log.info("📡 [PLAN-EVENTS] Plan event stream initialized | bufferSize={} | timeout={} | maxSubscribers={}",
+                bufferSize, timeout, maxSubscribers);
+    }
+
+    /**
+     * Opens a stream of the changes of the plans of a user, of a job, or of both.
+     *
+     * @param userId only stream plans of this user, may be null when a job id is given
+     * @param jobId  only stream plans of this job, may be null when a user id is given
+     * @return the emitter to return from the controller
+     * @throws IllegalArgumentException if neither a user id nor a job id is given
+     * @throws IllegalStateException    if the maximum number of open streams is reached
+     */
+    public SseEmitter subscribe(String userId, String jobId) {
+        String user = StringUtils.hasText(userId) ? userId : null;
+        String job = StringUtils.hasText(jobId) ? jobId : null;
+        if (user == null && job == null) {
+            throw new IllegalArgumentException("userId or jobId is required");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many open plan event streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        PlanEventSubscriber subscriber = new PlanEventSubscriber(emitter, user, job, bufferSize);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+        indexOf(subscriber).compute(keyOf(subscriber), (key, subscribers) -> {
+            Set<PlanEventSubscriber> updated = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        log.debug("📡 [PLAN-EVENTS] Stream opened | userId={} | jobId={} | open={}", user, job, subscriberCount.get());
+        return emitter;
+    }
+
+    /**
+     * Queues a committed plan change on the streams of its user and job.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        Plan plan = event.plan();
+        Set<PlanEventSubscriber> matching = new LinkedHashSet<>();
+        if (plan.getUserId() != null) {
+            collect(byUser.get(plan.getUserId()), plan, matching);
+        }
+        if (plan.getJobId() != null) {
+            collect(byJob.get(plan.getJobId()), plan, matching);
+        }
+        if (matching.isEmpty()) {
+            return;
+        }
+        PlanEventSubscriber.Frame frame;
+        try {
+            PlanChangeDto change = event.isDeleted()
+                    ? new PlanChangeDto(event.type().name(), plan.getId(), null, Instant.now())
+                    : new PlanChangeDto(event.type().name(), plan.getId(), planMapper.toDto(plan), null);
+            frame = new PlanEventSubscriber.Frame(event.type().name(), objectMapper.writeValueAsString(change));
+        } catch (JsonProcessingException ex) {
+            log.error("❌ [PLAN-EVENTS] Plan change could not be serialized | planId={} | error={}",
+                    plan.getId(), ex.getMessage(), ex);
+            return;
+        }
+        for (PlanEventSubscriber subscriber : matching) {
+            if (subscriber.offer(frame)) {
+                droppedCounter.increment();
+            }
+            subscriber.schedule(deliveryExecutor, () -> unsubscribe(subscriber));
+        }
+    }
+
+    /**
+     * Sends a keep-alive comment on every idle stream.
+     */
+    @Scheduled(fixedDelayString = "${app.plan.events.heartbeat-interval:PT30S}",
+            initialDelayString = "${app.plan.events.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        forEachSubscriber(subscriber -> {
+            subscriber.offerHeartbeat();
+            subscriber.schedule(deliveryExecutor, () -> unsubscribe(subscriber));
+        });
+    }
+
+    /**
+     * @return the number of open streams
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Completes every open stream so clients reconnect to another instance.
+     */
+    @PreDestroy
+    public void shutdown() {
+        int count = subscriberCount.get();
+        forEachSubscriber(subscriber -> subscriber.emitter().complete());
+        deliveryExecutor.shutdown();
+        log.info("📡 [PLAN-EVENTS] Plan event streams closed on shutdown | count={}", count);
+    }
+
+    private void unsubscribe(PlanEventSubscriber subscriber) {
+        if (!subscriber.close()) {
+            return;
+        }
+        indexOf(subscriber).computeIfPresent(keyOf(subscriber), (key, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+        log.debug("📡 [PLAN-EVENTS] Stream closed | userId={} | jobId={} | open={}",
+                subscriber.userId(), subscriber.jobId(), subscriberCount.get());
+    }
+
+    private void forEachSubscriber(Consumer<PlanEventSubscriber> action) {
+        byUser.values().forEach(subscribers -> subscribers.forEach(action));
+        byJob.values().forEach(subscribers -> subscribers.forEach(action));
+    }
+
+    private Map<String, Set<PlanEventSubscriber>> indexOf(PlanEventSubscriber subscriber) {
+        return subscriber.userId() != null ? byUser : byJob;
+    }
+
+    private static String keyOf(PlanEventSubscriber subscriber) {
+        return subscriber.userId() != null ? subscriber.userId() : subscriber.jobId();
+    }
+
+    private static void collect(Set<PlanEventSubscriber> subscribers, Plan plan, Set<PlanEventSubscriber> matching) {
+        if (subscribers == null) {
+            return;
+        }
+        for (PlanEventSubscriber subscriber : subscribers) {
+            if (!subscriber.isClosed() && subscriber.matches(plan)) {
+                matching.add(subscriber);
+            }
+        }
+    }
+}
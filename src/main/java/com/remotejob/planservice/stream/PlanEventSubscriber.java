@@ -0,0 +1,153 @@
+package com.remotejob.planservice.stream;
+
+import com.remotejob.planservice.entity.Plan;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open plan event stream and its bounded buffer of frames waiting to be sent.
+ * <p>
+ * Frames are queued without blocking the publisher; when the buffer is full the oldest frame is
+ * dropped. A drain task is submitted only while frames are waiting and at most one runs at a time,
+ * so an idle subscriber holds no thread and frames are sent in the order they were queued.
+ */
+final class PlanEventSubscriber {
+
+    private final SseEmitter emitter;
+    private final String userId;
+    private final String jobId;
+    private final int capacity;
+    private final ArrayDeque<Frame> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    PlanEventSubscriber(SseEmitter emitter, String userId, String jobId, int capacity) {
+        this.emitter = emitter;
+        this.userId = userId;
+        this.jobId = jobId;
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    String userId() {
+        return userId;
+    }
+
+    String jobId() {
+        return jobId;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * @return whether a plan change is of interest to this subscriber
+     */
+    boolean matches(Plan plan) {
+        return (userId == null || userId.equals(plan.getUserId()))
+                && (jobId == null || jobId.equals(plan.getJobId()));
+    }
+
+    /**
+     * Queues a frame, dropping the oldest queued frame when the buffer is full.
+     *
+     * @return whether a frame was dropped
+     */
+    boolean offer(Frame frame) {
+        synchronized (buffer) {
+            boolean dropped = buffer.size() >= capacity && buffer.pollFirst() != null;
+            buffer.addLast(frame);
+            return dropped;
+        }
+    }
+
+    /**
+     * Queues a keep-alive comment unless frames are already waiting to be sent.
+     */
+    void offerHeartbeat() {
+        synchronized (buffer) {
+            if (buffer.isEmpty()) {
+                buffer.addLast(Frame.HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Submits a drain task unless one is already running.
+     */
+    void schedule(Executor executor, Runnable onSendFailure) {
+        if (!closed.get() && draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(onSendFailure));
+        }
+    }
+
+    /**
+     * Marks the subscriber closed and discards the queued frames.
+     *
+     * @return whether this call closed the subscriber
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (buffer) {
+            buffer.clear();
+        }
+        return true;
+    }
+
+    private void drain(Runnable onSendFailure) {
+        do {
+            Frame frame;
+            while (!closed.get() && (frame = poll()) != null) {
+                try {
+                    emitter.send(frame.toEvent());
+                } catch (IOException | IllegalStateException ex) {
+                    // The client went away or the emitter completed; the container reports the
+                    // error to the emitter callbacks, which unsubscribe it.
+                    onSendFailure.run();
+                }
+            }
+            draining.set(false);
+        } while (!closed.get() && hasFrames() && draining.compareAndSet(false, true));
+    }
+
+    private Frame poll() {
+        synchronized (buffer) {
+            return buffer.pollFirst();
+        }
+    }
+
+    private boolean hasFrames() {
+        synchronized (buffer) {
+            return !buffer.isEmpty();
+        }
+    }
+
+    /**
+     * An event already serialized once for every subscriber it is sent to. A frame without a
+     * name is a keep-alive comment.
+     */
+    record Frame(String name, String data) {
+
+        static final Frame HEARTBEAT = new Frame(null, null);
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("keep-alive");
+            }
+            return SseEmitter.event().name(name).data(Objects.requireNonNull(data), MediaType.APPLICATION_JSON);
+        }
+    }
+}
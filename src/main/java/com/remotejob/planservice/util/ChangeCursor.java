@@ -0,0 +1,46 @@
+package com.remotejob.planservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor into the plan change feed, ordered by {@code (change_xid, change_seq)}.
+ *
+ * @param xid      the writing transaction of the last change returned
+ * @param sequence the change sequence of the last change returned
+ */
+public record ChangeCursor(long xid, long sequence) {
+
+    /**
+     * Cursor positioned before the first change.
+     */
+    public static final ChangeCursor START = new ChangeCursor(0L, 0L);
+
+    /**
+     * Encodes this cursor as an opaque URL-safe token.
+     */
+    public String encode() {
+        String raw = xid + "|" + sequence;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor, null or blank to read the feed from the beginning
+     * @return the decoded cursor, or {@link #START} if no token was given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ChangeCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new ChangeCursor(Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, ex);
+        }
+    }
+}
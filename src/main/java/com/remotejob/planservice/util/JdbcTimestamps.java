@@ -0,0 +1,41 @@
+package com.remotejob.planservice.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Converts {@link Instant} values for plain JDBC access to {@code timestamp} columns,
+ * binding and reading them exactly the way Hibernate does for the entity mappings.
+ */
+public final class JdbcTimestamps {
+
+    private JdbcTimestamps() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Converts an instant into the value to bind on a prepared statement.
+     *
+     * @param instant the instant, may be null
+     * @return the UTC offset date time, or null
+     */
+    public static OffsetDateTime toDb(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads an instant from a result set column.
+     *
+     * @param resultSet the result set positioned on a row
+     * @param column    the column label
+     * @return the instant, or null if the column is null
+     * @throws SQLException if the column cannot be read
+     */
+    public static Instant fromDb(ResultSet resultSet, String column) throws SQLException {
+        OffsetDateTime value = resultSet.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+}
@@ -0,0 +1,90 @@
+package com.remotejob.planservice.util;
+
+import com.remotejob.planservice.entity.Plan;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor over {@code (expires_at, id)}.
+ * <p>
+ * Pages list unlimited plans ({@code expires_at IS NULL}) first, ordered by id descending,
+ * followed by dated plans ordered by {@code expires_at} and id descending. A cursor with a
+ * null {@code expiresAt} therefore points into the unlimited phase.
+ *
+ * @param expiresAt the expiration date of the last plan returned, null for unlimited plans
+ * @param id        the id of the last plan returned
+ */
+public record PlanCursor(Instant expiresAt, UUID id) {
+
+    /**
+     * Upper bound used to start a keyset scan; sorts after every real key.
+     */
+    public static final UUID MAX_ID = new UUID(-1L, -1L);
+    public static final Instant MAX_EXPIRES_AT = Instant.parse("9999-12-31T23:59:59Z");
+
+    /**
+     * Cursor positioned before the first plan.
+     */
+    public static final PlanCursor START = new PlanCursor(null, MAX_ID);
+
+    /**
+     * Cursor positioned before the first dated plan.
+     */
+    public static final PlanCursor START_DATED = new PlanCursor(MAX_EXPIRES_AT, MAX_ID);
+
+    private static final String UNLIMITED = "-";
+
+    /**
+     * Builds the cursor pointing right after the given plan.
+     */
+    public static PlanCursor after(Plan plan) {
+        return new PlanCursor(plan.getExpiresAt(), plan.getId());
+    }
+
+    public boolean isUnlimitedPhase() {
+        return expiresAt == null;
+    }
+
+    /**
+     * Encodes this cursor as an opaque URL-safe token.
+     */
+    public String encode() {
+        String expires = expiresAt == null
+                ? UNLIMITED
+                : expiresAt.getEpochSecond() + "." + expiresAt.getNano();
+        String raw = expires + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor, null or blank for the first page
+     * @return the decoded cursor, or {@link #START} if no token was given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PlanCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String expires = raw.substring(0, separator);
+            UUID id = UUID.fromString(raw.substring(separator + 1));
+            if (UNLIMITED.equals(expires)) {
+                return new PlanCursor(null, id);
+            }
+            int dot = expires.indexOf('.');
+            Instant expiresAt = Instant.ofEpochSecond(
+                    Long.parseLong(expires.substring(0, dot)),
+                    Long.parseLong(expires.substring(dot + 1)));
+            return new PlanCursor(expiresAt, id);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, ex);
+        }
+    }
+}
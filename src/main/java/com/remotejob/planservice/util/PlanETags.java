@@ -0,0 +1,85 @@
+package com.remotejob.planservice.util;
+
+import com.remotejob.planservice.entity.Plan;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Builds strong entity tags for plan resources from the plans' {@code updatedAt} validators,
+ * without rendering the response. The tag of a single plan also carries its optimistic lock
+ * version, so it can be sent back in {@code If-Match} for a conditional update; it starts with
+ * {@code p} so that the {@code <count>-<hash>} tags of plan lists are never read as a version.
+ */
+public final class PlanETags {
+
+    private static final String PLAN_TAG_PREFIX = "\"p";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private PlanETags() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Returns the entity tag of a single plan.
+     */
+    public static String forPlan(Plan plan) {
+        long version = plan.getVersion() != null ? plan.getVersion() : 0L;
+        return quote("p" + version + "-" + Long.toHexString(micros(plan.getUpdatedAt())));
+    }
+
+    /**
+     * Returns the version carried by an entity tag of a single plan.
+     *
+     * @param entityTag a strong entity tag returned by {@link #forPlan(Plan)}
+     * @return the version of the plan the tag was built from
+     * @throws IllegalArgumentException if the tag is weak or was not built by {@link #forPlan(Plan)}
+     */
+    public static long versionOf(String entityTag) {
+        String tag = entityTag.trim();
+        int separator = tag.indexOf('-');
+        if (tag.length() < 2 || !tag.startsWith(PLAN_TAG_PREFIX) || !tag.endsWith("\"")
+                || separator <= PLAN_TAG_PREFIX.length()) {
+            throw new IllegalArgumentException("Not a plan entity tag: " + entityTag);
+        }
+        try {
+            return Long.parseLong(tag.substring(PLAN_TAG_PREFIX.length(), separator));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Not a plan entity tag: " + entityTag, ex);
+        }
+    }
+
+    /**
+     * Returns the entity tag of a list of plans, covering membership, order and modifications.
+     */
+    public static String forPlans(Collection<Plan> plans) {
+        long hash = FNV_OFFSET_BASIS;
+        for (Plan plan : plans) {
+            UUID id = plan.getId();
+            hash = mix(hash, id.getMostSignificantBits());
+            hash = mix(hash, id.getLeastSignificantBits());
+            hash = mix(hash, micros(plan.getUpdatedAt()));
+        }
+        return quote(plans.size() + "-" + Long.toHexString(hash));
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? 0L : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
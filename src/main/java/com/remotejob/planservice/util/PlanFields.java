@@ -0,0 +1,69 @@
+package com.remotejob.planservice.util;
+
+import com.remotejob.planservice.repository.PlanScalarView;
+import com.remotejob.planservice.repository.PlanSummaryView;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Sparse fieldset requested through the {@code fields} query parameter.
+ * <p>
+ * The selection is resolved to the narrowest repository projection that covers it, so
+ * unrequested columns, and in particular the {@code items} and {@code metadata} JSONB
+ * payloads, are not selected unless asked for.
+ *
+ * @param names the requested field names, in request order
+ */
+public record PlanFields(Set<String> names) {
+
+    private static final Set<String> SUMMARY_FIELDS = Set.of("id", "status", "isActive", "expiresAt", "jobId");
+    private static final Set<String> SCALAR_FIELDS = Set.of("userId", "invoiceId", "description", "durationInDays");
+    private static final Set<String> DOCUMENT_FIELDS = Set.of("items", "metadata");
+
+    /**
+     * Parses a comma-separated list of field names.
+     *
+     * @param fields the raw parameter value, e.g. {@code id,status,expiresAt}
+     * @return the parsed fieldset
+     * @throws IllegalArgumentException if the list is empty or contains an unknown field
+     */
+    public static PlanFields parse(String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .forEach(names::add);
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("fields must list at least one field");
+        }
+        for (String name : names) {
+            if (!SUMMARY_FIELDS.contains(name) && !SCALAR_FIELDS.contains(name) && !DOCUMENT_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown plan field: " + name);
+            }
+        }
+        return new PlanFields(Collections.unmodifiableSet(names));
+    }
+
+    /**
+     * Returns the narrowest projection covering the requested fields.
+     *
+     * @return {@link PlanSummaryView} or {@link PlanScalarView}, or null when a JSONB field
+     * is requested and the full entity has to be loaded
+     */
+    public Class<? extends PlanSummaryView> viewType() {
+        if (SUMMARY_FIELDS.containsAll(names)) {
+            return PlanSummaryView.class;
+        }
+        if (names.stream().noneMatch(DOCUMENT_FIELDS::contains)) {
+            return PlanScalarView.class;
+        }
+        return null;
+    }
+
+    public boolean includes(String name) {
+        return names.contains(name);
+    }
+}
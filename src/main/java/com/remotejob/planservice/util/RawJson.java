@@ -0,0 +1,147 @@
+package com.remotejob.planservice.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+
+/**
+ * Lazily parsed JSON document, used for the {@code items} and {@code metadata} JSONB payloads.
+ * <p>
+ * A value read from the database keeps the JSON text returned by the driver and is only parsed
+ * into a {@link JsonNode} the first time {@link #node()} is called. When serialized by Jackson
+ * the text is written verbatim as raw JSON, so plans read and returned unchanged are never parsed
+ * or re-serialized. Values built from a {@link JsonNode} (request bodies, events) keep the tree
+ * and render their text on first use.
+ * <p>
+ * Instances are immutable; the tree returned by {@link #node()} is shared and must not be modified.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public final class RawJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private volatile String json;
+    private volatile JsonNode node;
+
+    private RawJson(String json, JsonNode node) {
+        this.json = json;
+        this.node = node;
+    }
+
+    /**
+     * Wraps JSON text without parsing it.
+     *
+     * @param json the JSON text, may be null
+     * @return the wrapped document, or null if the text is null or blank
+     */
+    public static RawJson of(String json) {
+        return json == null || json.isBlank() ? null : new RawJson(json, null);
+    }
+
+    /**
+     * Wraps an already parsed JSON tree.
+     *
+     * @param node the JSON tree, may be null
+     * @return the wrapped document, or null if the tree is null
+     */
+    public static RawJson of(JsonNode node) {
+        return node == null ? null : new RawJson(null, node);
+    }
+
+    /**
+     * Returns the parsed tree of a possibly null document.
+     *
+     * @param rawJson the document, may be null
+     * @return the JSON tree, or null
+     */
+    public static JsonNode toNode(RawJson rawJson) {
+        return rawJson == null ? null : rawJson.node();
+    }
+
+    /**
+     * Returns the JSON text, rendering it from the tree on first use.
+     */
+    public String json() {
+        String current = json;
+        if (current == null) {
+            current = node.toString();
+            json = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the JSON tree, parsing the text on first use.
+     */
+    public JsonNode node() {
+        JsonNode current = node;
+        if (current == null) {
+            try {
+                current = MAPPER.readTree(json);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Failed to parse JSON string from database", e);
+            }
+            node = current;
+        }
+        return current;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RawJson that)) {
+            return false;
+        }
+        if (json != null && that.json != null && json.equals(that.json)) {
+            return true;
+        }
+        return node().equals(that.node());
+    }
+
+    @Override
+    public int hashCode() {
+        return node().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return json();
+    }
+
+    /**
+     * Writes the JSON text verbatim. Binary formats cannot embed raw text, so the tree is written instead.
+     */
+    public static class Serializer extends JsonSerializer<RawJson> {
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (gen.canWriteBinaryNatively()) {
+                gen.writeTree(value.node());
+            } else {
+                gen.writeRawValue(value.json());
+            }
+        }
+    }
+
+    /**
+     * Reads any JSON value into a tree-backed document.
+     */
+    public static class Deserializer extends JsonDeserializer<RawJson> {
+        @Override
+        public RawJson deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return RawJson.of(parser.<JsonNode>readValueAsTree());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- V10: Transactional outbox of plan changes
+-- Rows are appended in the transaction that writes the plan and deleted once the relay
+-- has published them to the plan changes exchange with a broker confirm
+
+CREATE TABLE plan_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    plan_id UUID NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE plan_outbox IS 'Plan changes waiting to be published; the id is the change sequence';
+COMMENT ON COLUMN plan_outbox.change_type IS 'UPSERTED or DELETED';
+COMMENT ON COLUMN plan_outbox.payload IS 'Plan state after the change, or the last state for DELETED';
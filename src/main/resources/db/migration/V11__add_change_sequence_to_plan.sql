@@ -0,0 +1,72 @@
+-- V11: Change tracking for the incremental change feed (GET /api/v1/plan/changes)
+-- Every insert or update of a plan stamps the row with a new change sequence and the id of the
+-- writing transaction; deletes leave a tombstone stamped the same way. The feed orders changes by
+-- (change_xid, change_seq) and only returns changes of transactions older than every running one,
+-- so a change can never appear behind a cursor a consumer has already passed.
+
+CREATE SEQUENCE plan_change_seq;
+
+ALTER TABLE plan ADD COLUMN change_seq BIGINT;
+ALTER TABLE plan ADD COLUMN change_xid xid8;
+
+-- Existing plans become the first changes of the feed, oldest update first
+UPDATE plan p
+SET change_seq = s.seq, change_xid = pg_current_xact_id()
+FROM (SELECT id, nextval('plan_change_seq') AS seq FROM (SELECT id FROM plan ORDER BY updated_at, id) ordered) s
+WHERE p.id = s.id;
+
+ALTER TABLE plan ALTER COLUMN change_seq SET NOT NULL;
+ALTER TABLE plan ALTER COLUMN change_xid SET NOT NULL;
+
+CREATE INDEX idx_plan_change ON plan (change_xid, change_seq);
+
+CREATE TABLE plan_tombstone (
+    plan_id UUID PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL,
+    invoice_id UUID NOT NULL,
+    job_id VARCHAR(255),
+    deleted_at TIMESTAMP NOT NULL DEFAULT now(),
+    change_seq BIGINT NOT NULL,
+    change_xid xid8 NOT NULL
+);
+
+CREATE INDEX idx_plan_tombstone_change ON plan_tombstone (change_xid, change_seq);
+
+CREATE FUNCTION plan_track_change() RETURNS trigger AS $$
+BEGIN
+    NEW.change_seq := nextval('plan_change_seq');
+    NEW.change_xid := pg_current_xact_id();
+    IF TG_OP = 'INSERT' THEN
+        -- A plan re-created with the id of a deleted one is no longer deleted
+        DELETE FROM plan_tombstone WHERE plan_id = NEW.id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_plan_track_change
+    BEFORE INSERT OR UPDATE ON plan
+    FOR EACH ROW EXECUTE FUNCTION plan_track_change();
+
+CREATE FUNCTION plan_track_delete() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO plan_tombstone (plan_id, user_id, invoice_id, job_id, deleted_at, change_seq, change_xid)
+    VALUES (OLD.id, OLD.user_id, OLD.invoice_id, OLD.job_id, now(), nextval('plan_change_seq'), pg_current_xact_id())
+    ON CONFLICT (plan_id) DO UPDATE SET
+        user_id = EXCLUDED.user_id,
+        invoice_id = EXCLUDED.invoice_id,
+        job_id = EXCLUDED.job_id,
+        deleted_at = EXCLUDED.deleted_at,
+        change_seq = EXCLUDED.change_seq,
+        change_xid = EXCLUDED.change_xid;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_plan_track_delete
+    AFTER DELETE ON plan
+    FOR EACH ROW EXECUTE FUNCTION plan_track_delete();
+
+COMMENT ON COLUMN plan.change_seq IS 'Change sequence drawn from plan_change_seq on every insert and update';
+COMMENT ON COLUMN plan.change_xid IS 'Transaction that last wrote the plan; orders the change feed together with change_seq';
+COMMENT ON TABLE plan_tombstone IS 'Deleted plans, reported as tombstones by the change feed';
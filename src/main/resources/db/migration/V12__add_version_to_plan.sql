@@ -0,0 +1,7 @@
+-- V12: Add version column to plan table
+-- Optimistic lock of the plan: every write increments it, and conditional PATCHes (If-Match)
+-- only apply while the plan is still at the version the client read
+
+ALTER TABLE plan ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN plan.version IS 'Optimistic lock version, incremented on every write of the plan';
@@ -0,0 +1,27 @@
+-- V13: JSON merge-patch (RFC 7396) of JSONB documents
+-- Lets PATCH /api/v1/plan/{id} merge partial items and metadata documents in place, in the
+-- UPDATE statement itself, instead of clients reading, editing and writing back the whole document
+
+CREATE FUNCTION jsonb_merge_patch(target jsonb, patch jsonb) RETURNS jsonb AS $$
+DECLARE
+    merged jsonb;
+    member record;
+BEGIN
+    -- A patch that is not an object replaces the target
+    IF patch IS NULL OR jsonb_typeof(patch) <> 'object' THEN
+        RETURN patch;
+    END IF;
+    merged := CASE WHEN jsonb_typeof(target) = 'object' THEN target ELSE '{}'::jsonb END;
+    FOR member IN SELECT key, value FROM jsonb_each(patch) LOOP
+        IF jsonb_typeof(member.value) = 'null' THEN
+            -- null removes the member
+            merged := merged - member.key;
+        ELSE
+            merged := jsonb_set(merged, ARRAY[member.key], jsonb_merge_patch(merged -> member.key, member.value));
+        END IF;
+    END LOOP;
+    RETURN merged;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+COMMENT ON FUNCTION jsonb_merge_patch(jsonb, jsonb) IS 'Applies an RFC 7396 JSON merge patch to a JSONB document';
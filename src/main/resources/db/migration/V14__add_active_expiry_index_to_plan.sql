@@ -0,0 +1,8 @@
+-- V14: Index the expiry of active plans
+-- Lets the expiry sweeper find active plans past their expires_at, and the next one to expire,
+-- without scanning the plans it has already deactivated
+
+CREATE INDEX IF NOT EXISTS idx_plan_active_expires ON plan(expires_at)
+    WHERE is_active = true AND expires_at IS NOT NULL;
+
+COMMENT ON INDEX idx_plan_active_expires IS 'Active plans with an expiration date, by expires_at; used by the expiry sweeper';
@@ -0,0 +1,11 @@
+-- V15: Claim outbox rows for publication
+-- The relay claims a batch in a short transaction and publishes it after the commit, so waiting for
+-- broker confirms no longer holds a transaction. A claim expires, and the rows become claimable
+-- again, if the relay dies before deleting or releasing them
+
+ALTER TABLE plan_outbox ADD COLUMN claimed_until TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_plan_outbox_claimed ON plan_outbox(claimed_until)
+    WHERE claimed_until IS NOT NULL;
+
+COMMENT ON COLUMN plan_outbox.claimed_until IS 'End of the claim of the relay publishing the row, NULL when unclaimed';
@@ -0,0 +1,24 @@
+-- V16: Derive plan_type only from integral metadata ids within the integer range
+-- V4 cast any numeric metadata.id with ::numeric::integer, which rounds fractions (the application
+-- truncated them) and fails the INSERT or UPDATE of a plan whose id is beyond the integer range.
+-- plan_type is now NULL for both, the same rule as StickyPlanTypes.planTypeOf
+
+DROP INDEX IF EXISTS idx_plan_active_sticky;
+
+ALTER TABLE plan DROP COLUMN plan_type;
+
+ALTER TABLE plan ADD COLUMN plan_type INTEGER
+    GENERATED ALWAYS AS (
+        CASE
+            WHEN jsonb_typeof(metadata -> 'id') = 'number'
+                AND (metadata ->> 'id')::numeric = trunc((metadata ->> 'id')::numeric)
+                AND (metadata ->> 'id')::numeric BETWEEN -2147483648 AND 2147483647
+                THEN (metadata ->> 'id')::numeric::integer
+        END
+    ) STORED;
+
+-- The sticky plan types are fixed by this predicate and StickyPlanTypes.TYPES; change both together
+CREATE INDEX IF NOT EXISTS idx_plan_active_sticky ON plan(expires_at DESC)
+    WHERE is_active = true AND job_id IS NOT NULL AND plan_type IN (5, 6, 7);
+
+COMMENT ON COLUMN plan.plan_type IS 'Plan package type: metadata.id when it is an integer (5, 6 and 7 are sticky plans)';
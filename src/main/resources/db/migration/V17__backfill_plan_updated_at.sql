@@ -0,0 +1,29 @@
+-- V17: Backfill plan.updated_at for the plans that existed before V6
+-- V6 added updated_at with DEFAULT now(), so every plan present at that time got the migration
+-- time as its last modification. plan has no creation timestamp; the closest known time is the
+-- start of the plan (expires_at minus its duration), used here when it is not later than the
+-- backfilled value. Plans without an expiration date keep the V6 time. Backfilled plans are
+-- stamped with a new change sequence by the plan_track_change trigger and show up in the change feed.
+
+DO $$
+DECLARE
+    v6_installed_on TIMESTAMP;
+BEGIN
+    IF to_regclass('flyway_schema_history') IS NULL THEN
+        RETURN;
+    END IF;
+
+    SELECT installed_on INTO v6_installed_on FROM flyway_schema_history WHERE version = '6';
+
+    IF v6_installed_on IS NULL THEN
+        RETURN;
+    END IF;
+
+    -- Rows written after V6 carry their own modification time and are left untouched
+    UPDATE plan
+    SET updated_at = expires_at - make_interval(days => duration_in_days)
+    WHERE updated_at <= v6_installed_on
+      AND expires_at IS NOT NULL
+      AND expires_at - make_interval(days => duration_in_days) < updated_at;
+END;
+$$;
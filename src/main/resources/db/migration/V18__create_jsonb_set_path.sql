@@ -0,0 +1,25 @@
+-- V18: Set a member at a path of a JSONB document, creating its missing parents
+-- jsonb_set only creates the last member of the path and leaves the document unchanged when a
+-- parent is missing, so PATCH /api/v1/plan/{id} with itemsPaths or metadataPaths such as
+-- "/limits/jobs" was silently ignored on plans without "limits"
+
+CREATE FUNCTION jsonb_set_path(target jsonb, path text[], value jsonb) RETURNS jsonb AS $$
+DECLARE
+    depth integer := coalesce(array_length(path, 1), 0);
+    parent jsonb;
+BEGIN
+    -- Like jsonb_merge_patch, a document or parent that is not a container is replaced by an object
+    IF target IS NULL OR jsonb_typeof(target) NOT IN ('object', 'array') THEN
+        target := '{}'::jsonb;
+    END IF;
+    FOR i IN 1 .. depth - 1 LOOP
+        parent := target #> path[1:i];
+        IF parent IS NULL OR jsonb_typeof(parent) NOT IN ('object', 'array') THEN
+            target := jsonb_set(target, path[1:i], '{}'::jsonb);
+        END IF;
+    END LOOP;
+    RETURN jsonb_set(target, path, value);
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+COMMENT ON FUNCTION jsonb_set_path(jsonb, text[], jsonb) IS 'jsonb_set creating the missing parents of the path as objects';
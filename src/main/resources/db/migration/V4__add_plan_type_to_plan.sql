@@ -0,0 +1,18 @@
+-- V4: Add plan_type column to plan table
+-- Denormalizes metadata->'id' so sticky plans can be filtered and indexed in the database
+
+-- Add plan_type as a stored generated column (existing rows are backfilled by the table rewrite)
+ALTER TABLE plan ADD COLUMN IF NOT EXISTS plan_type INTEGER
+    GENERATED ALWAYS AS (
+        CASE
+            WHEN jsonb_typeof(metadata -> 'id') = 'number' THEN (metadata ->> 'id')::numeric::integer
+        END
+    ) STORED;
+
+-- Partial index covering only active sticky plans linked to a job
+-- Keep the plan_type list in sync with app.plan.sticky-types
+CREATE INDEX IF NOT EXISTS idx_plan_active_sticky ON plan(expires_at DESC)
+    WHERE is_active = true AND job_id IS NOT NULL AND plan_type IN (5, 6, 7);
+
+-- Add comment to new column
+COMMENT ON COLUMN plan.plan_type IS 'Plan package type derived from metadata.id (5, 6 and 7 are sticky plans)';
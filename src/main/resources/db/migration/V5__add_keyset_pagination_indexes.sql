@@ -0,0 +1,6 @@
+-- V5: Add keyset pagination indexes to plan table
+-- Supports cursor-based pagination over (expires_at, id) for user, job and full listings
+
+CREATE INDEX IF NOT EXISTS idx_plan_user_expires_id ON plan(user_id, expires_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_plan_job_expires_id ON plan(job_id, expires_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_plan_expires_id ON plan(expires_at DESC, id DESC);
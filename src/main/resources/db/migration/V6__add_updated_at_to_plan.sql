@@ -0,0 +1,6 @@
+-- V6: Add updated_at column to plan table
+-- Last modification time of a plan, used as the validator for conditional GETs (ETag / Last-Modified)
+
+ALTER TABLE plan ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+
+COMMENT ON COLUMN plan.updated_at IS 'Timestamp of the last modification of the plan (UTC)';
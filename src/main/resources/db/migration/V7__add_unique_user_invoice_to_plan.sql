@@ -0,0 +1,31 @@
+-- V7: Enforce one plan per (user_id, invoice_id)
+-- Backs the ON CONFLICT (user_id, invoice_id) upserts of the plans-to-create consumer
+
+-- Existing duplicates are not resolved here: no plan row is deleted or rewritten by this migration.
+-- If any (user_id, invoice_id) pair has more than one plan, the migration fails and lists the pairs
+-- so they can be reconciled manually before the deployment is retried.
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('(user_id=%s, invoice_id=%s, plans=%s)', user_id, invoice_id, plans), ', ')
+    INTO duplicates
+    FROM (
+        SELECT user_id, invoice_id, count(*) AS plans
+        FROM plan
+        GROUP BY user_id, invoice_id
+        HAVING count(*) > 1
+        ORDER BY user_id, invoice_id
+        LIMIT 100
+    ) duplicated;
+
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'V7: plan has duplicated (user_id, invoice_id) pairs, first 100: %', duplicates
+            USING HINT = 'Keep a single plan per user and invoice (merge or remove the others), then rerun the migration';
+    END IF;
+END;
+$$;
+
+ALTER TABLE plan ADD CONSTRAINT uq_plan_user_invoice UNIQUE (user_id, invoice_id);
+
+COMMENT ON CONSTRAINT uq_plan_user_invoice ON plan IS 'A plan is created at most once per user and invoice';
@@ -0,0 +1,19 @@
+-- V8: Parking table for invoice status updates that arrive before their plan exists
+-- Used by the jdbc parking store (app.plan.parking.store=jdbc); one merged update per (user_id, invoice_id)
+
+CREATE TABLE parked_status_update (
+    user_id VARCHAR(255) NOT NULL,
+    invoice_id UUID NOT NULL,
+    status VARCHAR(255),
+    is_active BOOLEAN,
+    expires_at TIMESTAMP,
+    job_id VARCHAR(255),
+    parked_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT pk_parked_status_update PRIMARY KEY (user_id, invoice_id)
+);
+
+-- Supports the TTL sweep and the size trim
+CREATE INDEX idx_parked_status_update_parked_at ON parked_status_update (parked_at);
+
+COMMENT ON TABLE parked_status_update IS 'Invoice status updates waiting for their plan to be created';
+COMMENT ON COLUMN parked_status_update.parked_at IS 'When the update was last parked; rows older than app.plan.parking.ttl are dropped';
@@ -0,0 +1,14 @@
+-- V9: Processed events index for idempotent plans-to-create consumption
+-- One 128-bit content key per applied PlansToCreateEvent; rows older than app.amqp.dedup.ttl are deleted
+
+CREATE TABLE processed_event (
+    event_key UUID NOT NULL,
+    processed_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT pk_processed_event PRIMARY KEY (event_key)
+);
+
+-- Supports the TTL cleanup and the startup scan that warms the in-memory filter
+CREATE INDEX idx_processed_event_processed_at ON processed_event (processed_at);
+
+COMMENT ON TABLE processed_event IS 'Content keys of plan creation events already applied, used to skip redeliveries and replays';
+COMMENT ON COLUMN processed_event.event_key IS 'Name-based UUID of the event JSON content';
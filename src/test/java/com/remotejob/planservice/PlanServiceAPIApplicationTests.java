@@ -1,17 +1,34 @@
 package com.remotejob.planservice;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.remotejob.planservice.dto.PlanChangePageDto;
 import com.remotejob.planservice.dto.PlanDto;
+import com.remotejob.planservice.dto.PlanPageDto;
+import com.remotejob.planservice.util.ChangeCursor;
+import com.remotejob.planservice.util.RawJson;
 import com.remotejob.planservice.utils.TestUtils;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 
 /**
@@ -19,6 +36,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
  */
 class PlanServiceAPIApplicationTests extends TestUtils {
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldCreatePlan() throws Exception {
         String jwt = this.registerUserAndGetJWT();
@@ -165,6 +185,328 @@ class PlanServiceAPIApplicationTests extends TestUtils {
         assert created.invoiceId.equals(patched.invoiceId);
     }
 
+    @Test
+    void shouldMergePatchDocumentsInPlace() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto created = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        String patchBody = "{\"itemsMergePatch\":{\"seats\":3,\"features\":null,\"limits\":{\"jobs\":5,\"boosts\":1}},"
+                + "\"itemsPaths\":{\"/limits/jobs\":10},"
+                + "\"metadataMergePatch\":{\"highlightYellow\":true}}";
+
+        PlanDto patched = getDataResponse(performPatchRequest(patchBody, "/api/v1/plan/" + created.id, jwt)
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        assert "basic".equals(patched.items.node().get("planName").asText());
+        assert patched.items.node().get("seats").asInt() == 3;
+        assert !patched.items.node().has("features");
+        assert patched.items.node().get("limits").get("jobs").asInt() == 10;
+        assert patched.items.node().get("limits").get("boosts").asInt() == 1;
+        assert patched.metadata.node().get("highlightYellow").asBoolean();
+
+        // Missing parents of a path are created rather than the update being dropped
+        PlanDto deepPatched = getDataResponse(performPatchRequest("{\"metadataPaths\":{\"/badges/top/color\":\"gold\"}}",
+                        "/api/v1/plan/" + created.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        assert "gold".equals(deepPatched.metadata.node().at("/badges/top/color").asText());
+        assert deepPatched.metadata.node().get("highlightYellow").asBoolean();
+
+        performPatchRequest("{\"items\":{\"seats\":1},\"itemsMergePatch\":{\"seats\":2}}", "/api/v1/plan/" + created.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        performPatchRequest("{\"itemsPaths\":{\"seats\":2}}", "/api/v1/plan/" + created.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectPatchWithStaleIfMatch() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto created = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        String url = "/api/v1/plan/" + created.id;
+        String etag = performGetRequest(url, "")
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult firstRes = this.mockMvc.perform(patch(url)
+                        .content("{\"status\":\"PAID\"}")
+                        .header(AUTHORIZATION_HEADER, BEARER_TOKEN_PREFIX + jwt)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(CONTENT_TYPE_JSON))
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        PlanDto first = getDataResponse(firstRes, PlanDto.class);
+        assert "PAID".equals(first.status);
+        assert first.version == created.version + 1;
+        assert !etag.equals(firstRes.getResponse().getHeader(HttpHeaders.ETAG));
+
+        // A second writer still holding the original entity tag must not overwrite the first update
+        this.mockMvc.perform(patch(url)
+                        .content("{\"status\":\"CANCELLED\"}")
+                        .header(AUTHORIZATION_HEADER, BEARER_TOKEN_PREFIX + jwt)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(CONTENT_TYPE_JSON))
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        PlanDto current = getDataResponse(performGetRequest(url, "")
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        assert "PAID".equals(current.status);
+
+        // The entity tag of a plan list is not a plan entity tag, even when it looks like "<number>-<hex>"
+        String listEtag = performGetRequest("/api/v1/plan/user/" + created.userId, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(patch(url)
+                        .content("{\"status\":\"CANCELLED\"}")
+                        .header(AUTHORIZATION_HEADER, BEARER_TOKEN_PREFIX + jwt)
+                        .header(HttpHeaders.IF_MATCH, listEtag)
+                        .contentType(CONTENT_TYPE_JSON))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldReplacePlanOnConcurrentPutsWithoutVersion() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto created = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+
+        int writers = 8;
+        List<Integer> statuses;
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            List<Future<Integer>> puts = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                PlanDto replacement = buildTestPlanDto(created.id);
+                replacement.userId = created.userId;
+                replacement.invoiceId = created.invoiceId;
+                replacement.description = "Concurrent replacement " + i;
+                String body = convertToJson(replacement);
+                puts.add(executor.submit(() -> performPutRequest(body, "/api/v1/plan", jwt)
+                        .andReturn().getResponse().getStatus()));
+            }
+            statuses = new ArrayList<>();
+            for (Future<Integer> put : puts) {
+                statuses.add(put.get());
+            }
+        }
+
+        // Every replacement wins in turn instead of failing on the version read by another writer
+        assert statuses.stream().allMatch(status -> status == 200) : statuses;
+        PlanDto current = getDataResponse(performGetRequest("/api/v1/plan/" + created.id, "")
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        assert current.description.startsWith("Concurrent replacement ");
+        assert current.version == created.version + writers;
+    }
+
+    @Test
+    void shouldRequireAuthenticationToStreamPlansByUserId() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto created = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        String url = "/api/v1/plan/user/" + created.userId + "?stream=true";
+
+        performGetRequest(url, "")
+                .andExpect(MockMvcResultMatchers.status().is4xxClientError());
+
+        MvcResult started = performGetRequest(url, jwt)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assert body.contains(created.id.toString());
+    }
+
+    @Test
+    void shouldExportPlansOrderedById() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        String status = "EXPORT-" + generateRandomString(8);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PlanDto plan = buildTestPlanDto(null);
+            plan.status = status;
+            PlanDto created = getDataResponse(performPostRequest(convertToJson(plan), "/api/v1/plan", jwt)
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn(), PlanDto.class);
+            ids.add(created.id.toString());
+        }
+        // Lowercase hex strings sort like the uuid type in PostgreSQL
+        ids.sort(Comparator.naturalOrder());
+
+        MvcResult started = performGetRequest("/api/v1/plan/export?status=" + status, jwt)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> exported = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                JsonNode plan = mapper.readTree(line);
+                assert status.equals(plan.get("status").asText());
+                exported.add(plan.get("id").asText());
+            }
+        }
+        assert exported.equals(ids) : "exported " + exported + ", expected " + ids;
+    }
+
+    @Test
+    void shouldPageByUserIdWithCursor() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto first = buildTestPlanDto(null);
+        for (int i = 0; i < 3; i++) {
+            PlanDto plan = buildTestPlanDto(null);
+            plan.userId = first.userId;
+            plan.expiresAt = Instant.now().plusSeconds((i + 1) * 3600L);
+            performPostRequest(convertToJson(plan), "/api/v1/plan", jwt)
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        MvcResult firstPageRes = performGetRequest("/api/v1/plan/user/" + first.userId + "?limit=2", "")
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        PlanPageDto firstPage = getDataResponse(firstPageRes, PlanPageDto.class);
+        assert firstPage.items.size() == 2;
+        assert firstPage.nextCursor != null;
+        assert !firstPage.items.get(0).expiresAt.isBefore(firstPage.items.get(1).expiresAt);
+
+        MvcResult secondPageRes = performGetRequest("/api/v1/plan/user/" + first.userId
+                + "?limit=2&cursor=" + firstPage.nextCursor, "")
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        PlanPageDto secondPage = getDataResponse(secondPageRes, PlanPageDto.class);
+        assert secondPage.items.size() == 1;
+        assert secondPage.nextCursor == null;
+        assert firstPage.items.stream().noneMatch(p -> p.id.equals(secondPage.items.get(0).id));
+    }
+
+    @Test
+    void shouldGetSelectedFieldsById() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        MvcResult createdRes = performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        PlanDto created = getDataResponse(createdRes, PlanDto.class);
+
+        MvcResult getRes = performGetRequest("/api/v1/plan/" + created.id + "?fields=id,status,expiresAt", "")
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        PlanDto got = getDataResponse(getRes, PlanDto.class);
+        assert created.id.equals(got.id);
+        assert "CREATED".equals(got.status);
+        assert got.expiresAt != null;
+        assert got.userId == null;
+        assert got.items == null;
+
+        performGetRequest("/api/v1/plan/" + created.id + "?fields=id,unknown", "")
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedPlan() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        MvcResult createdRes = performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        PlanDto created = getDataResponse(createdRes, PlanDto.class);
+        String url = "/api/v1/plan/" + created.id;
+
+        MvcResult getRes = performGetRequest(url, "")
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = getRes.getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
+    @Test
+    void shouldTagUserPlansFromTheLoadedPlans() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto first = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        PlanDto second = buildTestPlanDto(null);
+        second.userId = first.userId;
+        performPostRequest(convertToJson(second), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        String url = "/api/v1/plan/user/" + first.userId;
+
+        String etag = performGetRequest(url, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(get(url).header(AUTHORIZATION_HEADER, BEARER_TOKEN_PREFIX + jwt).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        // Replacing a plan by another one keeps the count of the user's plans but not their tag
+        performDeleteRequest("", "/api/v1/plan/" + first.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        PlanDto third = buildTestPlanDto(null);
+        third.userId = first.userId;
+        performPostRequest(convertToJson(third), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        List<PlanDto> plans = getDataListResponse(
+                this.mockMvc.perform(get(url).header(AUTHORIZATION_HEADER, BEARER_TOKEN_PREFIX + jwt).header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .andExpect(MockMvcResultMatchers.status().isOk())
+                        .andReturn(), PlanDto.class);
+        assert plans.size() == 2;
+    }
+
+    @Test
+    void shouldReportUpsertsAndTombstonesInChangeFeed() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        // Every transaction started from now on gets a later id: the feed is read from here, not drained
+        Long xid = jdbcTemplate.queryForObject("SELECT pg_current_xact_id()::text::bigint", Long.class);
+        String cursor = new ChangeCursor(xid, 0L).encode();
+
+        PlanDto created = getDataResponse(performPostRequest(convertToJson(buildTestPlanDto(null)), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+        cursor = awaitChange(cursor, jwt, "UPSERTED", created.id);
+
+        performDeleteRequest("", "/api/v1/plan/" + created.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        awaitChange(cursor, jwt, "DELETED", created.id);
+    }
+
+    /**
+     * Reads the change feed after the cursor until the given change shows up, polling while older
+     * transactions still hold the feed's horizon before it.
+     *
+     * @return the cursor following the page that contained the change
+     */
+    private String awaitChange(String cursor, String jwt, String type, UUID planId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            PlanChangePageDto page = getDataResponse(performGetRequest("/api/v1/plan/changes?limit=500&since=" + cursor, jwt)
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn(), PlanChangePageDto.class);
+            cursor = page.nextCursor;
+            if (page.changes.stream().anyMatch(change -> type.equals(change.type) && planId.equals(change.planId))) {
+                return cursor;
+            }
+            if (!page.hasMore) {
+                assert System.nanoTime() < deadline : type + " change of plan " + planId + " not reported by the feed";
+                Thread.sleep(100);
+            }
+        }
+    }
+
     private PlanDto buildTestPlanDto(UUID id) throws Exception {
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode items = mapper.createObjectNode();
@@ -178,7 +520,7 @@ class PlanServiceAPIApplicationTests extends TestUtils {
         dto.invoiceId = UUID.randomUUID();
         dto.description = "Test plan";
         dto.isActive = Boolean.TRUE;
-        dto.items = items;
+        dto.items = RawJson.of(items);
         dto.status = "CREATED";
         dto.durationInDays = 30;
         dto.expiresAt = Instant.now().plusSeconds(30L * 24 * 3600);
@@ -0,0 +1,110 @@
+package com.remotejob.planservice.amqp;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Decisions of the adaptive ingestion controller on four lanes, against stubbed Hikari pool metrics
+ * (10 connections, watermarks at 50% and 80%, acquire threshold of 20 ms).
+ */
+class IngestionThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+    private InvoiceEventLanes lanes;
+    private IngestionThrottle throttle;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        when(hikari.getMaximumPoolSize()).thenReturn(10);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        lanes = new InvoiceEventLanes(4, Duration.ofSeconds(1));
+        throttle = new IngestionThrottle(lanes, dataSource, meterRegistry, Duration.ofMillis(20), 0.8, 0.5, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        lanes.shutdown();
+    }
+
+    @Test
+    void shouldHalveLimitWhileThreadsAwaitConnections() {
+        pool(3, 2);
+
+        throttle.tick();
+        throttle.tick();
+
+        assert lanes.getConcurrencyLimit() == 1;
+        assert throttle.getAdjustments().size() == 2;
+        assert throttle.getAdjustments().get(0).action() == IngestionThrottle.Action.DECREASE;
+        assert throttle.getAdjustments().get(0).concurrencyLimit() == 1;
+        assert throttle.getAdjustments().get(1).concurrencyLimit() == 2;
+    }
+
+    @Test
+    void shouldHalveLimitOnSlowAcquiresOrHighUtilization() {
+        pool(3, 0);
+        meterRegistry.timer("hikaricp.connections.acquire").record(50, TimeUnit.MILLISECONDS);
+        throttle.tick();
+        assert "slow connection acquire".equals(throttle.getLastDecision().reason());
+        assert lanes.getConcurrencyLimit() == 2;
+
+        pool(8, 0);
+        throttle.tick();
+        assert "active connections above high watermark".equals(throttle.getLastDecision().reason());
+        assert lanes.getConcurrencyLimit() == 1;
+    }
+
+    @Test
+    void shouldGrowLimitByOneLaneWhilePoolIsIdle() {
+        lanes.setConcurrencyLimit(1);
+        pool(2, 0);
+
+        for (int i = 0; i < 5; i++) {
+            throttle.tick();
+        }
+
+        assert lanes.getConcurrencyLimit() == 4;
+        assert throttle.getAdjustments().size() == 3;
+        assert throttle.getAdjustments().stream().allMatch(decision -> decision.action() == IngestionThrottle.Action.INCREASE);
+        assert throttle.getLastDecision().action() == IngestionThrottle.Action.HOLD;
+    }
+
+    @Test
+    void shouldOnlyCountHoldsWithinWatermarksAndAtBounds() {
+        pool(6, 0);
+        throttle.tick();
+        assert throttle.getLastDecision().action() == IngestionThrottle.Action.HOLD;
+        assert "within watermarks".equals(throttle.getLastDecision().reason());
+
+        lanes.setConcurrencyLimit(1);
+        pool(9, 1);
+        throttle.tick();
+        assert throttle.getLastDecision().action() == IngestionThrottle.Action.HOLD;
+        assert throttle.getLastDecision().reason().endsWith("(limit at bound)");
+
+        assert lanes.getConcurrencyLimit() == 1;
+        assert throttle.getAdjustments().isEmpty();
+        assert meterRegistry.get("ingestion.adjustments").tag("action", "hold").counter().count() == 2;
+    }
+
+    private void pool(int activeConnections, int threadsAwaiting) {
+        when(pool.getActiveConnections()).thenReturn(activeConnections);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(threadsAwaiting);
+    }
+}
@@ -0,0 +1,57 @@
+package com.remotejob.planservice.amqp;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * LZ4 frame bodies decompressed up to, and refused beyond, the configured maximum size.
+ */
+class Lz4DecompressingPostProcessorTest {
+
+    private static final int MAX_DECOMPRESSED_SIZE = 64 * 1024;
+
+    private final Lz4DecompressingPostProcessor decompressor = new Lz4DecompressingPostProcessor(MAX_DECOMPRESSED_SIZE);
+
+    @Test
+    void shouldDecompressBodyWithinLimit() throws IOException {
+        byte[] payload = new byte[MAX_DECOMPRESSED_SIZE];
+        Arrays.fill(payload, (byte) 'a');
+
+        Message decompressed = decompressor.postProcessMessage(compressed(payload));
+
+        assert Arrays.equals(decompressed.getBody(), payload);
+    }
+
+    @Test
+    void shouldRefuseBodyThatInflatesBeyondLimit() throws IOException {
+        // A few hundred compressed bytes expanding to 16 times the limit
+        byte[] payload = new byte[16 * MAX_DECOMPRESSED_SIZE];
+        Message message = compressed(payload);
+        assert message.getBody().length < MAX_DECOMPRESSED_SIZE / 16;
+
+        try {
+            decompressor.postProcessMessage(message);
+            assert false : "expected the decompressed size to be capped";
+        } catch (AmqpIOException ex) {
+            assert ex.getCause().getMessage().contains(String.valueOf(MAX_DECOMPRESSED_SIZE));
+        }
+    }
+
+    private static Message compressed(byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new LZ4FrameOutputStream(bytes)) {
+            out.write(payload);
+        }
+        MessageProperties properties = new MessageProperties();
+        properties.setContentEncoding(Lz4DecompressingPostProcessor.ENCODING);
+        return new Message(bytes.toByteArray(), properties);
+    }
+}
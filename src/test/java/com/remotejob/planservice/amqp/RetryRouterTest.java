@@ -0,0 +1,84 @@
+package com.remotejob.planservice.amqp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Routing of failed messages through the retry tiers, against an in-memory stand-in for the broker
+ * that records what would have been published and dead-letters expired retries back to the source queue.
+ */
+class RetryRouterTest {
+
+    private static final String QUEUE = "plans-to-create";
+
+    private final List<Published> published = new ArrayList<>();
+    private RetryRouter retryRouter;
+
+    @BeforeEach
+    void setUp() {
+        RabbitOperations broker = mock(RabbitOperations.class);
+        doAnswer(invocation -> published.add(new Published(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(broker).send(anyString(), any(Message.class));
+        retryRouter = new RetryRouter(broker, new RetryClassifier(), List.of(Duration.ofSeconds(1), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void shouldWalkRetryTiersThenDeadLetterTransientFailures() {
+        Message message = new Message("{}".getBytes(), new MessageProperties());
+        QueryTimeoutException failure = new QueryTimeoutException("statement timeout");
+
+        assert retryRouter.route(QUEUE, message, failure) == RetryRouter.Outcome.RETRY;
+        assert retryRouter.route(QUEUE, redeliver(), failure) == RetryRouter.Outcome.RETRY;
+        assert retryRouter.route(QUEUE, redeliver(), failure) == RetryRouter.Outcome.DEAD_LETTER;
+
+        assert published.size() == 3;
+        assert published.get(0).queue().equals("plans-to-create.retry.1");
+        assert "1000".equals(published.get(0).message().getMessageProperties().getExpiration());
+        assert published.get(1).queue().equals("plans-to-create.retry.2");
+        assert "10000".equals(published.get(1).message().getMessageProperties().getExpiration());
+        assert published.get(2).queue().equals("plans-to-create.dlq");
+        assert published.get(2).message().getMessageProperties().getExpiration() == null;
+    }
+
+    @Test
+    void shouldDeadLetterFatalFailuresWithoutRetrying() {
+        Message constraint = new Message("{}".getBytes(), new MessageProperties());
+        Message unreadable = new Message("not json".getBytes(), new MessageProperties());
+
+        assert retryRouter.route(QUEUE, constraint, new DataIntegrityViolationException("duplicate key"))
+                == RetryRouter.Outcome.DEAD_LETTER;
+        assert retryRouter.route(QUEUE, unreadable, new MessageConversionException("bad payload"))
+                == RetryRouter.Outcome.DEAD_LETTER;
+
+        assert published.stream().allMatch(p -> p.queue().equals("plans-to-create.dlq"));
+        assert "duplicate key".equals(published.get(0).message().getMessageProperties().getHeader(RetryRouter.FAILURE_HEADER));
+    }
+
+    /**
+     * Simulates the broker dead-lettering the last retried message back to the source queue once its TTL expired.
+     */
+    private Message redeliver() {
+        Message retried = published.get(published.size() - 1).message();
+        MessageProperties properties = new MessageProperties();
+        properties.getHeaders().putAll(retried.getMessageProperties().getHeaders());
+        return new Message(retried.getBody(), properties);
+    }
+
+    private record Published(String queue, Message message) {
+    }
+}
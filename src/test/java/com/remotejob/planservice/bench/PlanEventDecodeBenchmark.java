@@ -0,0 +1,145 @@
+package com.remotejob.planservice.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.amqp.JacksonBinaryMessageConverter;
+import com.remotejob.planservice.amqp.RabbitConfig;
+import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decode throughput of a {@link PlansToCreateEvent} per wire format, through the same decompressor
+ * and content-type delegating converter as the listener containers.
+ * <p>
+ * Decoded payload bytes are reported next to the score as the {@code bytes} counter, in bytes per
+ * millisecond; dividing it by the score gives the encoded size of the format. Launch
+ * {@link #main(String[])} from the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanEventDecodeBenchmark {
+
+    private static final String ITEMS = "{\"planName\":\"premium\",\"seats\":5,\"features\":[\"support\",\"export\",\"analytics\"],"
+            + "\"limits\":{\"jobs\":25,\"featuredJobs\":5,\"boosts\":10},\"price\":{\"amount\":199.0,\"currency\":\"USD\"}}";
+    private static final String METADATA = "{\"id\":7,\"showLogo\":true,\"brandColor\":\"#FF6B6B\","
+            + "\"highlightYellow\":true,\"highlightBrandColor\":false,\"showOnTop\":true}";
+
+    @Param({"json", "smile", "cbor", "json+gzip", "json+lz4", "smile+lz4"})
+    public String format;
+
+    private MessageConverter converter;
+    private DelegatingDecompressingPostProcessor decompressor;
+    private byte[] body;
+    private String contentType;
+    private String contentEncoding;
+
+    @Setup
+    public void setUp() throws IOException {
+        RabbitConfig rabbitConfig = new RabbitConfig();
+        converter = rabbitConfig.messageConverter();
+        decompressor = rabbitConfig.payloadDecompressor(DataSize.ofMegabytes(8));
+
+        String[] parts = format.split("\\+");
+        MessageProperties properties = new MessageProperties();
+        if (!parts[0].equals("json")) {
+            properties.setContentType(parts[0].equals("smile")
+                    ? JacksonBinaryMessageConverter.SMILE_CONTENT_TYPE
+                    : JacksonBinaryMessageConverter.CBOR_CONTENT_TYPE);
+        }
+        Message encoded = converter.toMessage(sampleEvent(), properties);
+        contentType = encoded.getMessageProperties().getContentType();
+        body = encoded.getBody();
+        if (parts.length > 1) {
+            contentEncoding = parts[1];
+            body = compress(body, contentEncoding);
+        }
+    }
+
+    @Benchmark
+    public Object decode(Payload payload) {
+        payload.bytes += body.length;
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+        properties.setContentEncoding(contentEncoding);
+        properties.setInferredArgumentType(PlansToCreateEvent.class);
+        return converter.fromMessage(decompressor.postProcessMessage(new Message(body, properties)));
+    }
+
+    /**
+     * Encoded bytes decoded by the thread during the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Payload {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    private static PlansToCreateEvent sampleEvent() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        PlansToCreateEvent event = new PlansToCreateEvent();
+        event.userId = "user-12345";
+        event.invoiceId = UUID.randomUUID();
+        event.description = "Premium subscription plan";
+        event.isActive = Boolean.TRUE;
+        event.items = mapper.readTree(ITEMS);
+        event.status = "PAID";
+        event.durationInDays = 30;
+        event.expiresAt = Instant.now();
+        event.jobId = "job-456";
+        event.metadata = mapper.readTree(METADATA);
+        return event;
+    }
+
+    private static byte[] compress(byte[] body, String encoding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = encoding.equals("gzip") ? new GZIPOutputStream(bytes) : new LZ4FrameOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlanEventDecodeBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
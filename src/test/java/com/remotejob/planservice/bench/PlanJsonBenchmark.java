@@ -0,0 +1,155 @@
+package com.remotejob.planservice.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.dto.PlanDto;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.mapper.PlanMapper;
+import com.remotejob.planservice.util.RawJson;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-plan cost of the read path for the JSONB payloads, from the text returned by the
+ * driver to the response body: loading the entity, mapping it to its DTO and serializing the DTO.
+ * The tree arm parses the payloads into Jackson trees on load, as the former {@code JsonDynamicConverter}
+ * did, and re-serializes them; the raw arm keeps the text in {@link RawJson} holders through
+ * {@link PlanMapper} and writes it verbatim.
+ * <p>
+ * Run with the {@code -prof gc} profiler to compare allocations as well as throughput, e.g. by
+ * launching {@link #main(String[])} from the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanJsonBenchmark {
+
+    private static final String ITEMS = "{\"planName\":\"premium\",\"seats\":5,\"features\":[\"support\",\"export\",\"analytics\"],"
+            + "\"limits\":{\"jobs\":25,\"featuredJobs\":5,\"boosts\":10},\"price\":{\"amount\":199.0,\"currency\":\"USD\"}}";
+    private static final String METADATA = "{\"id\":7,\"showLogo\":true,\"brandColor\":\"#FF6B6B\","
+            + "\"highlightYellow\":true,\"highlightBrandColor\":false,\"showOnTop\":true}";
+
+    private ObjectMapper mapper;
+    private PlanMapper planMapper;
+
+    @Setup
+    public void setUp() {
+        mapper = new ObjectMapper().findAndRegisterModules();
+        planMapper = Mappers.getMapper(PlanMapper.class);
+    }
+
+    @Benchmark
+    public byte[] parseAndReserialize() throws Exception {
+        TreePlan entity = new TreePlan();
+        fillScalars(entity);
+        entity.items = mapper.readTree(ITEMS);
+        entity.metadata = mapper.readTree(METADATA);
+        return mapper.writeValueAsBytes(TreePlanDto.of(entity));
+    }
+
+    @Benchmark
+    public byte[] rawPassthrough() throws Exception {
+        Plan entity = new Plan();
+        entity.setId(UUID.randomUUID());
+        entity.setUserId("user-12345");
+        entity.setInvoiceId(UUID.randomUUID());
+        entity.setDescription("Premium subscription plan");
+        entity.setIsActive(Boolean.TRUE);
+        entity.setStatus("PAID");
+        entity.setDurationInDays(30);
+        entity.setExpiresAt(Instant.now());
+        entity.setJobId("job-456");
+        entity.setItems(RawJson.of(ITEMS));
+        entity.setMetadata(RawJson.of(METADATA));
+        return mapper.writeValueAsBytes(planMapper.toDto(entity));
+    }
+
+    private static void fillScalars(TreePlan entity) {
+        entity.id = UUID.randomUUID();
+        entity.userId = "user-12345";
+        entity.invoiceId = UUID.randomUUID();
+        entity.description = "Premium subscription plan";
+        entity.isActive = Boolean.TRUE;
+        entity.status = "PAID";
+        entity.durationInDays = 30;
+        entity.expiresAt = Instant.now();
+        entity.jobId = "job-456";
+    }
+
+    /**
+     * Shape of {@link Plan} before the payloads became {@link RawJson}.
+     */
+    public static class TreePlan {
+        public UUID id;
+        public String userId;
+        public UUID invoiceId;
+        public String description;
+        public Boolean isActive;
+        public JsonNode items;
+        public String status;
+        public Integer durationInDays;
+        public Instant expiresAt;
+        public String jobId;
+        public JsonNode metadata;
+    }
+
+    /**
+     * Shape of {@link PlanDto} before the payloads became {@link RawJson}.
+     */
+    public static class TreePlanDto {
+        public UUID id;
+        public String userId;
+        public UUID invoiceId;
+        public String description;
+        public Boolean isActive;
+        public JsonNode items;
+        public String status;
+        public Integer durationInDays;
+        public Instant expiresAt;
+        public String jobId;
+        public JsonNode metadata;
+
+        // Field by field, as the generated mapper copied the entity
+        static TreePlanDto of(TreePlan entity) {
+            TreePlanDto dto = new TreePlanDto();
+            dto.id = entity.id;
+            dto.userId = entity.userId;
+            dto.invoiceId = entity.invoiceId;
+            dto.description = entity.description;
+            dto.isActive = entity.isActive;
+            dto.items = entity.items;
+            dto.status = entity.status;
+            dto.durationInDays = entity.durationInDays;
+            dto.expiresAt = entity.expiresAt;
+            dto.jobId = entity.jobId;
+            dto.metadata = entity.metadata;
+            return dto;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlanJsonBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,263 @@
+package com.remotejob.planservice.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of concurrent partial updates of the same plans, before and after the single-statement
+ * PATCH path:
+ * <ul>
+ *     <li>{@code readModifyWrite}: the former path, reading the plan then writing it back in one
+ *     transaction (two round trips plus commit, last writer wins);</li>
+ *     <li>{@code singleStatement}: {@code UPDATE ... RETURNING *} of the patched columns;</li>
+ *     <li>{@code compareAndSet}: the same statement guarded by the version last seen by the thread
+ *     (If-Match), re-reading the version and retrying when another writer got there first;</li>
+ *     <li>{@code putReadVersion}: the former unconditional PUT, reading the current version and
+ *     saving the plan guarded by it, which fails (500) when another writer got in between;</li>
+ *     <li>{@code putLockedVersion}: the same with the version read {@code FOR UPDATE}, holding the
+ *     row until the commit so the guarded update cannot fail.</li>
+ * </ul>
+ * Runs against the PostgreSQL database given by {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user}
+ * and {@code -Dbench.jdbc.password}, which must be migrated by the application first. The benchmark
+ * plans are inserted on setup and deleted on teardown; fewer {@code plans} means more contention.
+ * The If-Match retries of {@code compareAndSet} and the failed updates of the PUT arms are reported
+ * as the {@code conflicts} counter.
+ * Launch {@link #main(String[])} from the test classpath after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PlanPatchContentionBenchmark {
+
+    private static final String USER_ID = "bench-patch-contention";
+
+    private static final String INSERT = "INSERT INTO plan (id, user_id, invoice_id, description, is_active, items, " +
+            "status, duration_in_days, updated_at) VALUES (?, ?, ?, 'Contention benchmark plan', true, '{}'::jsonb, 'CREATED', 30, ?)";
+    private static final String SELECT = "SELECT * FROM plan WHERE id = ?";
+    private static final String UPDATE_BY_ID = "UPDATE plan SET status = ?, is_active = ?, updated_at = ?, " +
+            "version = version + 1 WHERE id = ?";
+    private static final String PATCH = UPDATE_BY_ID + " RETURNING *";
+    private static final String PATCH_IF_MATCH = UPDATE_BY_ID + " AND version = ? RETURNING *";
+    private static final String SELECT_VERSION = "SELECT version FROM plan WHERE id = ?";
+    private static final String SELECT_VERSION_FOR_UPDATE = SELECT_VERSION + " FOR UPDATE";
+    private static final String UPDATE_IF_VERSION = UPDATE_BY_ID + " AND version = ?";
+
+    @State(Scope.Benchmark)
+    public static class Plans {
+
+        @Param({"1", "16"})
+        public int plans;
+
+        UUID[] ids;
+
+        @Setup(Level.Trial)
+        public void insert() throws SQLException {
+            ids = new UUID[plans];
+            try (Connection connection = connect(); PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (int i = 0; i < plans; i++) {
+                    ids[i] = UUID.randomUUID();
+                    insert.setObject(1, ids[i]);
+                    insert.setString(2, USER_ID);
+                    insert.setObject(3, UUID.randomUUID());
+                    insert.setTimestamp(4, now());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws SQLException {
+            try (Connection connection = connect();
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM plan WHERE user_id = ?")) {
+                delete.setString(1, USER_ID);
+                delete.executeUpdate();
+            }
+        }
+
+        UUID pick() {
+            return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Session {
+
+        Connection connection;
+        long[] seenVersions;
+        public long conflicts;
+
+        @Setup(Level.Trial)
+        public void open(Plans plans) throws SQLException {
+            connection = connect();
+            seenVersions = new long[plans.plans];
+        }
+
+        @Setup(Level.Iteration)
+        public void resetConflicts() {
+            conflicts = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean readModifyWrite(Plans plans, Session session) throws SQLException {
+        Connection connection = session.connection;
+        UUID id = plans.pick();
+        connection.setAutoCommit(false);
+        try {
+            boolean active;
+            try (PreparedStatement select = connection.prepareStatement(SELECT)) {
+                select.setObject(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    active = rs.getBoolean("is_active");
+                }
+            }
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_BY_ID)) {
+                bindPatch(update, id, !active);
+                update.executeUpdate();
+            }
+            connection.commit();
+            return active;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Benchmark
+    public boolean singleStatement(Plans plans, Session session) throws SQLException {
+        try (PreparedStatement patch = session.connection.prepareStatement(PATCH)) {
+            bindPatch(patch, plans.pick(), ThreadLocalRandom.current().nextBoolean());
+            try (ResultSet rs = patch.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Benchmark
+    public long compareAndSet(Plans plans, Session session) throws SQLException {
+        int index = ThreadLocalRandom.current().nextInt(plans.ids.length);
+        UUID id = plans.ids[index];
+        while (true) {
+            try (PreparedStatement patch = session.connection.prepareStatement(PATCH_IF_MATCH)) {
+                bindPatch(patch, id, ThreadLocalRandom.current().nextBoolean());
+                patch.setLong(5, session.seenVersions[index]);
+                try (ResultSet rs = patch.executeQuery()) {
+                    if (rs.next()) {
+                        session.seenVersions[index] = rs.getLong("version");
+                        return session.seenVersions[index];
+                    }
+                }
+            }
+            // 412: read the current version, as a client would with GET, and try again
+            session.conflicts++;
+            try (PreparedStatement select = session.connection.prepareStatement(SELECT_VERSION)) {
+                select.setObject(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    session.seenVersions[index] = rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean putReadVersion(Plans plans, Session session) throws SQLException {
+        return put(plans, session, SELECT_VERSION);
+    }
+
+    @Benchmark
+    public boolean putLockedVersion(Plans plans, Session session) throws SQLException {
+        return put(plans, session, SELECT_VERSION_FOR_UPDATE);
+    }
+
+    private static boolean put(Plans plans, Session session, String selectVersion) throws SQLException {
+        Connection connection = session.connection;
+        UUID id = plans.pick();
+        connection.setAutoCommit(false);
+        try {
+            long version;
+            try (PreparedStatement select = connection.prepareStatement(selectVersion)) {
+                select.setObject(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    version = rs.getLong(1);
+                }
+            }
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_IF_VERSION)) {
+                bindPatch(update, id, ThreadLocalRandom.current().nextBoolean());
+                update.setLong(5, version);
+                if (update.executeUpdate() == 0) {
+                    session.conflicts++;
+                    connection.rollback();
+                    return false;
+                }
+            }
+            connection.commit();
+            return true;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void bindPatch(PreparedStatement statement, UUID id, boolean active) throws SQLException {
+        statement.setString(1, active ? "PAID" : "CANCELLED");
+        statement.setBoolean(2, active);
+        statement.setTimestamp(3, now());
+        statement.setObject(4, id);
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/plans"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlanPatchContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.remotejob.planservice.cache;
+
+import com.remotejob.planservice.entity.Plan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Ordering of cache writes: a plan loaded before a committed write must not replace the newer entry.
+ */
+class PlanCacheTest {
+
+    private final PlanCache planCache = new PlanCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    @Test
+    void shouldKeepNewerVersionWhenStalePlanIsPut() {
+        UUID id = UUID.randomUUID();
+        planCache.put(plan(id, 2L));
+
+        // A batch lookup read version 1 before the write committed and caches it afterwards
+        planCache.put(plan(id, 1L));
+
+        assert planCache.getIfPresent(id).orElseThrow().getVersion() == 2L;
+    }
+
+    @Test
+    void shouldReplaceEntryWithNewerVersion() {
+        UUID id = UUID.randomUUID();
+        planCache.put(plan(id, 1L));
+        planCache.put(plan(id, 3L));
+
+        assert planCache.getIfPresent(id).orElseThrow().getVersion() == 3L;
+
+        planCache.evict(id);
+        assert planCache.getIfPresent(id).isEmpty();
+    }
+
+    private static Plan plan(UUID id, Long version) {
+        Plan plan = new Plan();
+        plan.setId(id);
+        plan.setVersion(version);
+        return plan;
+    }
+}
@@ -0,0 +1,37 @@
+package com.remotejob.planservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plan types resolved from metadata, under the same rule as the {@code plan_type} generated column.
+ */
+class StickyPlanTypesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldResolveIntegralIds() throws Exception {
+        assert planTypeOf("{\"id\": 6}") == 6;
+        assert planTypeOf("{\"id\": 6.0}") == 6;
+        assert planTypeOf("{\"id\": -1}") == -1;
+        assert planTypeOf("{\"id\": 2147483647}") == Integer.MAX_VALUE;
+    }
+
+    @Test
+    void shouldIgnoreFractionalOutOfRangeAndNonNumericIds() throws Exception {
+        // Neither truncated nor rounded: 5.9 is not sticky type 5 nor 6
+        assert planTypeOf("{\"id\": 5.9}") == null;
+        assert planTypeOf("{\"id\": 2147483648}") == null;
+        assert planTypeOf("{\"id\": 1e20}") == null;
+        assert planTypeOf("{\"id\": \"6\"}") == null;
+        assert planTypeOf("{}") == null;
+        assert StickyPlanTypes.planTypeOf(null) == null;
+    }
+
+    private Integer planTypeOf(String metadata) throws Exception {
+        JsonNode node = objectMapper.readTree(metadata);
+        return StickyPlanTypes.planTypeOf(node);
+    }
+}
@@ -0,0 +1,85 @@
+package com.remotejob.planservice.controller;
+
+import com.remotejob.planservice.dto.PlanBatchRequestDto;
+import com.remotejob.planservice.dto.PlanBatchResponseDto;
+import com.remotejob.planservice.dto.PlanDto;
+import com.remotejob.planservice.util.RawJson;
+import com.remotejob.planservice.utils.TestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Batch lookups of plans mixing found and missing keys, against a cap of three plans per lookup.
+ */
+@TestPropertySource(properties = "app.plan.batch.max-rows=3")
+class PlanBatchLookupTests extends TestUtils {
+
+    @Test
+    void shouldReturnFoundPlansAndMissingKeys() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        PlanDto byId = createPlan(jwt, "user-" + generateRandomString(6));
+        PlanDto byInvoice = createPlan(jwt, "user-" + generateRandomString(6));
+        UUID missingId = UUID.randomUUID();
+        UUID missingInvoiceId = UUID.randomUUID();
+        String missingUserId = "user-" + generateRandomString(6);
+
+        PlanBatchResponseDto response = getDataResponse(performPostRequest(convertToJson(batch(
+                        List.of(byId.id, missingId), List.of(byInvoice.invoiceId, missingInvoiceId), List.of(missingUserId))),
+                "/api/v1/plan/batch", "")
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanBatchResponseDto.class);
+
+        assert response.byId.size() == 1 && byId.id.equals(response.byId.get(byId.id).id);
+        assert response.byInvoiceId.get(byInvoice.invoiceId).size() == 1;
+        assert response.byUserId.isEmpty();
+        assert response.missing.ids.equals(List.of(missingId));
+        assert response.missing.invoiceIds.equals(List.of(missingInvoiceId));
+        assert response.missing.userIds.equals(List.of(missingUserId));
+    }
+
+    @Test
+    void shouldRefuseLookupMatchingMorePlansThanTheCap() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        String userId = "user-" + generateRandomString(6);
+        PlanDto first = createPlan(jwt, userId);
+        createPlan(jwt, userId);
+        PlanDto other = createPlan(jwt, "user-" + generateRandomString(6));
+
+        // Three plans fit the cap
+        performPostRequest(convertToJson(batch(List.of(other.id), List.of(), List.of(userId))), "/api/v1/plan/batch", "")
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // The same plan counts once per key matching it: four plans exceed the cap
+        performPostRequest(convertToJson(batch(List.of(other.id), List.of(first.invoiceId), List.of(userId))),
+                "/api/v1/plan/batch", "")
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    private PlanDto createPlan(String jwt, String userId) throws Exception {
+        PlanDto dto = new PlanDto();
+        dto.userId = userId;
+        dto.invoiceId = UUID.randomUUID();
+        dto.description = "Batch lookup plan";
+        dto.isActive = Boolean.TRUE;
+        dto.items = RawJson.of("{\"planName\":\"basic\",\"seats\":1}");
+        dto.status = "CREATED";
+        dto.durationInDays = 30;
+        dto.expiresAt = Instant.now().plusSeconds(30L * 24 * 3600);
+        return getDataResponse(performPostRequest(convertToJson(dto), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+    }
+
+    private static PlanBatchRequestDto batch(List<UUID> ids, List<UUID> invoiceIds, List<String> userIds) {
+        PlanBatchRequestDto request = new PlanBatchRequestDto();
+        request.ids = ids;
+        request.invoiceIds = invoiceIds;
+        request.userIds = userIds;
+        return request;
+    }
+}
@@ -0,0 +1,124 @@
+package com.remotejob.planservice.controller;
+
+import com.remotejob.planservice.dto.PlanDto;
+import com.remotejob.planservice.stream.PlanEventStream;
+import com.remotejob.planservice.util.RawJson;
+import com.remotejob.planservice.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events streams of plan changes filtered by user and by job, against a limit of
+ * three open streams. Every stream opened by a test is closed after it.
+ */
+@TestPropertySource(properties = "app.plan.events.max-subscribers=3")
+class PlanEventStreamTests extends TestUtils {
+
+    @Autowired
+    private PlanEventStream planEventStream;
+
+    private final List<MvcResult> streams = new ArrayList<>();
+
+    @AfterEach
+    void closeStreams() {
+        streams.forEach(stream -> stream.getRequest().getAsyncContext().complete());
+        streams.clear();
+    }
+
+    @Test
+    void shouldStreamOnlyChangesOfTheSubscribedUser() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        String userId = "user-" + generateRandomString(6);
+        MvcResult stream = subscribe("userId=" + userId);
+
+        PlanDto other = createPlan(jwt, "user-" + generateRandomString(6), null);
+        PlanDto own = createPlan(jwt, userId, null);
+
+        // Frames are sent in order: once the user's plan is streamed, the other one would have been too
+        String body = awaitFrame(stream, own.id);
+        assert body.contains("event:UPSERTED");
+        assert !body.contains(other.id.toString());
+    }
+
+    @Test
+    void shouldStreamOnlyChangesOfTheSubscribedJob() throws Exception {
+        String jwt = this.registerUserAndGetJWT();
+        String jobId = "job-" + generateRandomString(6);
+        MvcResult stream = subscribe("jobId=" + jobId);
+
+        PlanDto otherJob = createPlan(jwt, "user-" + generateRandomString(6), "job-" + generateRandomString(6));
+        PlanDto withoutJob = createPlan(jwt, "user-" + generateRandomString(6), null);
+        PlanDto own = createPlan(jwt, "user-" + generateRandomString(6), jobId);
+
+        String body = awaitFrame(stream, own.id);
+        assert !body.contains(otherJob.id.toString());
+        assert !body.contains(withoutJob.id.toString());
+
+        performDeleteRequest("", "/api/v1/plan/" + own.id, jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assert awaitFrame(stream, "event:DELETED").contains("event:DELETED");
+    }
+
+    @Test
+    void shouldRejectStreamsBeyondTheLimit() throws Exception {
+        assert planEventStream.subscriberCount() == 0;
+        for (int i = 0; i < 3; i++) {
+            subscribe("userId=user-" + generateRandomString(6));
+        }
+
+        performGetRequest("/api/v1/plan/events?userId=user-" + generateRandomString(6), "")
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+        performGetRequest("/api/v1/plan/events", "")
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        // A closed stream frees its slot
+        closeStreams();
+        assert planEventStream.subscriberCount() == 0;
+        subscribe("userId=user-" + generateRandomString(6));
+    }
+
+    private MvcResult subscribe(String query) throws Exception {
+        MvcResult stream = performGetRequest("/api/v1/plan/events?" + query, "")
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        streams.add(stream);
+        return stream;
+    }
+
+    private static String awaitFrame(MvcResult stream, Object content) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(content.toString())) {
+            assert System.nanoTime() < deadline : "no frame with " + content + " in " + body;
+            Thread.sleep(20);
+            body = stream.getResponse().getContentAsString();
+        }
+        return body;
+    }
+
+    private PlanDto createPlan(String jwt, String userId, String jobId) throws Exception {
+        PlanDto dto = new PlanDto();
+        dto.userId = userId;
+        dto.invoiceId = UUID.randomUUID();
+        dto.description = "Streamed plan";
+        dto.isActive = Boolean.TRUE;
+        dto.items = RawJson.of("{\"planName\":\"basic\",\"seats\":1}");
+        dto.status = "CREATED";
+        dto.durationInDays = 30;
+        dto.expiresAt = Instant.now().plusSeconds(30L * 24 * 3600);
+        dto.jobId = jobId;
+        return getDataResponse(performPostRequest(convertToJson(dto), "/api/v1/plan", jwt)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn(), PlanDto.class);
+    }
+}
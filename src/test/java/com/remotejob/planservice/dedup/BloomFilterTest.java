@@ -0,0 +1,61 @@
+package com.remotejob.planservice.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Sizing and accuracy of the processed events Bloom filter, filled up to its expected insertions.
+ */
+class BloomFilterTest {
+
+    private static final int EXPECTED_INSERTIONS = 100_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void shouldSizeBitArrayFromExpectedInsertionsAndTargetProbability() {
+        BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+
+        // m = -n ln(p) / ln(2)^2 bits, rounded up to whole 64-bit words
+        double optimalBytes = -EXPECTED_INSERTIONS * Math.log(FALSE_POSITIVE_PROBABILITY) / (Math.log(2) * Math.log(2)) / 8;
+        assert filter.sizeInBytes() >= optimalBytes;
+        assert filter.sizeInBytes() < optimalBytes + 8;
+        assert filter.expectedFalsePositiveProbability() == 0;
+    }
+
+    @Test
+    void shouldNeverReportAnInsertedKeyAsAbsent() {
+        BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+        List<UUID> inserted = randomKeys(EXPECTED_INSERTIONS);
+        inserted.forEach(filter::put);
+
+        assert inserted.stream().allMatch(filter::mightContain);
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateCloseToTarget() {
+        BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+        randomKeys(EXPECTED_INSERTIONS).forEach(filter::put);
+
+        int probes = 100_000;
+        long falsePositives = randomKeys(probes).stream().filter(filter::mightContain).count();
+        double measured = (double) falsePositives / probes;
+
+        assert measured > 0.007 && measured < 0.013 : "measured false-positive rate " + measured;
+        assert Math.abs(filter.expectedFalsePositiveProbability() - FALSE_POSITIVE_PROBABILITY) < 0.003
+                : "estimated false-positive rate " + filter.expectedFalsePositiveProbability();
+    }
+
+    private List<UUID> randomKeys(int count) {
+        List<UUID> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return keys;
+    }
+}
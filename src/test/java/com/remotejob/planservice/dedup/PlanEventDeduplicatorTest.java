@@ -0,0 +1,131 @@
+package com.remotejob.planservice.dedup;
+
+import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Claiming and looking up processed events through the Bloom filter generations, against an
+ * in-memory stand-in for the {@code processed_event} table that records which keys were looked up.
+ */
+class PlanEventDeduplicatorTest {
+
+    private final Set<UUID> table = new HashSet<>();
+    private final List<Collection<UUID>> lookups = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PlanEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        ProcessedEventStore store = mock(ProcessedEventStore.class);
+        when(store.findProcessed(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> keys = invocation.getArgument(0);
+            lookups.add(keys);
+            Set<UUID> found = new HashSet<>(keys);
+            found.retainAll(table);
+            return found;
+        });
+        when(store.claim(anyCollection())).thenAnswer(invocation -> {
+            Set<UUID> claimed = new HashSet<>();
+            for (UUID key : invocation.<Collection<UUID>>getArgument(0)) {
+                if (table.add(key)) {
+                    claimed.add(key);
+                }
+            }
+            return claimed;
+        });
+        when(store.deleteProcessedBefore(any())).thenReturn(0);
+        deduplicator = new PlanEventDeduplicator(store, mock(TransactionTemplate.class),
+                meterRegistry, 10_000, 0.01, Duration.ofDays(7));
+    }
+
+    @Test
+    void shouldAnswerUnseenKeysWithoutLookingUpTheTable() {
+        Set<UUID> processed = deduplicator.findProcessed(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+        assert processed.isEmpty();
+        assert lookups.isEmpty();
+        assert checks("new") == 2;
+    }
+
+    @Test
+    void shouldClaimKeysOnceAndReportThemAsProcessed() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        assert deduplicator.claim(List.of(first)).equals(Set.of(first));
+        assert deduplicator.claim(List.of(first, second)).equals(Set.of(second));
+
+        UUID unseen = UUID.randomUUID();
+        assert deduplicator.findProcessed(List.of(first, second, unseen)).equals(Set.of(first, second));
+        assert lookups.size() == 1 && !lookups.get(0).contains(unseen);
+        assert checks("duplicate") == 2;
+        assert checks("new") == 1;
+    }
+
+    @Test
+    void shouldRememberKeysForOneGenerationAfterRotation() {
+        UUID key = UUID.randomUUID();
+        deduplicator.claim(List.of(key));
+
+        deduplicator.rotate();
+        assert deduplicator.findProcessed(List.of(key)).equals(Set.of(key));
+
+        // Two rotations later the key is past the TTL: the table no longer has it and the filter forgot it
+        deduplicator.rotate();
+        table.remove(key);
+        lookups.clear();
+        assert deduplicator.findProcessed(List.of(key)).isEmpty();
+        assert lookups.isEmpty();
+    }
+
+    @Test
+    void shouldCountFalsePositivesOfTheFilter() {
+        UUID claimed = UUID.randomUUID();
+        deduplicator.claim(List.of(claimed));
+        // Claimed but rolled back: the filter keeps the key while the table does not
+        table.remove(claimed);
+
+        assert deduplicator.findProcessed(List.of(claimed)).isEmpty();
+        assert checks("false_positive") == 1;
+    }
+
+    @Test
+    void shouldKeyEventsByTheirIdRatherThanTheirContent() {
+        PlansToCreateEvent event = event("invoice-paid-1", "PAID");
+        UUID key = deduplicator.keyOf(event);
+
+        assert key.equals(deduplicator.keyOf(event("invoice-paid-1", "PAID")));
+        assert key.equals(deduplicator.keyOf(event("invoice-paid-1", "CANCELLED")));
+        assert !key.equals(deduplicator.keyOf(event("invoice-paid-2", "PAID")));
+        assert deduplicator.keyOf(event(null, "PAID")) == null;
+    }
+
+    private static PlansToCreateEvent event(String eventId, String status) {
+        PlansToCreateEvent event = new PlansToCreateEvent();
+        event.eventId = eventId;
+        event.userId = "user-12345";
+        event.invoiceId = new UUID(0, 1);
+        event.status = status;
+        return event;
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("plans.dedup.checks").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.remotejob.planservice.expiry;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.service.PlanService;
+import com.remotejob.planservice.util.RawJson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Expiry sweeper: deactivation of expired plans against the application database, and adaptation
+ * of the batch size to the backlog against a stand-in plan service. Each test runs its own sweeper
+ * so the first sweep is due immediately.
+ */
+@SpringBootTest
+class PlanExpirySweeperTests {
+
+    @Autowired
+    private PlanService planService;
+
+    @Test
+    void shouldDeactivateActivePlanPastItsExpiration() {
+        Plan plan = new Plan();
+        plan.setUserId("user-" + UUID.randomUUID());
+        plan.setInvoiceId(UUID.randomUUID());
+        plan.setDescription("Expired test plan");
+        plan.setIsActive(Boolean.TRUE);
+        plan.setItems(RawJson.of("{\"planName\":\"basic\"}"));
+        plan.setStatus("CREATED");
+        plan.setDurationInDays(30);
+        plan.setExpiresAt(Instant.now().minus(1, ChronoUnit.DAYS));
+        Plan created = planService.createOrUpdate(plan);
+
+        new PlanExpirySweeper(planService, new SimpleMeterRegistry(), "EXPIRED", 50, 1000,
+                Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofSeconds(10)).sweep();
+
+        Plan swept = planService.getByUserIdAndInvoiceId(created.getUserId(), created.getInvoiceId()).orElseThrow();
+        assert Boolean.FALSE.equals(swept.getIsActive());
+        assert "EXPIRED".equals(swept.getStatus());
+        assert swept.getVersion() == created.getVersion() + 1;
+    }
+
+    @Test
+    void shouldDoubleBatchSizeWhileBatchesComeBackFull() {
+        Backlog backlog = new Backlog(1_000);
+
+        for (int i = 0; i < 5; i++) {
+            backlog.sweeper.sweep();
+        }
+
+        assert backlog.requestedBatchSizes.equals(List.of(2, 4, 8, 16, 16)) : backlog.requestedBatchSizes;
+    }
+
+    @Test
+    void shouldHalveBatchSizeOnceBatchesComeBackPartial() {
+        Backlog backlog = new Backlog(30);
+        for (int i = 0; i < 4; i++) {
+            backlog.sweeper.sweep();
+        }
+        // 2 + 4 + 8 + 16 drained the backlog and left the batch size at its maximum
+        assert backlog.expiredPlans == 0;
+        backlog.requestedBatchSizes.clear();
+
+        for (int i = 0; i < 5; i++) {
+            backlog.sweeper.sweep();
+        }
+
+        assert backlog.requestedBatchSizes.equals(List.of(16, 8, 4, 2, 2)) : backlog.requestedBatchSizes;
+    }
+
+    /**
+     * A sweeper over a stand-in plan service holding {@code expiredPlans} expired plans, running one
+     * batch of 2 to 16 plans per sweep with every sweep due.
+     */
+    private static final class Backlog {
+
+        private final List<Integer> requestedBatchSizes = new ArrayList<>();
+        private final PlanExpirySweeper sweeper;
+        private int expiredPlans;
+
+        private Backlog(int expiredPlans) {
+            this.expiredPlans = expiredPlans;
+            PlanService planService = mock(PlanService.class);
+            when(planService.deactivateExpired(any(), eq("EXPIRED"), anyInt())).thenAnswer(invocation -> {
+                int limit = invocation.getArgument(2);
+                requestedBatchSizes.add(limit);
+                int deactivated = Math.min(limit, this.expiredPlans);
+                this.expiredPlans -= deactivated;
+                return Collections.nCopies(deactivated, new Plan());
+            });
+            when(planService.getNextExpiryAfter(any())).thenReturn(Optional.empty());
+            sweeper = new PlanExpirySweeper(planService, new SimpleMeterRegistry(), "EXPIRED", 2, 16,
+                    Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.remotejob.planservice.index;
+
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.event.PlanChangedEvent;
+import com.remotejob.planservice.repository.PlanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental updates of the job decoration projection, against an empty stand-in repository.
+ */
+class JobDecorationIndexTest {
+
+    private JobDecorationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PlanRepository planRepository = mock(PlanRepository.class);
+        when(planRepository.findActiveJobPlans(any())).thenReturn(List.of());
+        index = new JobDecorationIndex(planRepository);
+        index.reconcile();
+    }
+
+    @Test
+    void shouldNeverHideJobWhileItsPlanIsUpdated() throws InterruptedException {
+        UUID planId = UUID.randomUUID();
+        index.onPlanChanged(PlanChangedEvent.upserted(plan(planId, "job-1", 6)));
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger missing = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                if (!index.getDecorations(List.of("job-1")).containsKey("job-1")) {
+                    missing.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20_000; i++) {
+            index.onPlanChanged(PlanChangedEvent.upserted(plan(planId, "job-1", 5 + i % 3)));
+        }
+        writing.set(false);
+        reader.join();
+
+        assert missing.get() == 0 : "job-1 was missing from " + missing.get() + " lookups";
+        assert index.getDecorations(List.of("job-1")).get("job-1").planId().equals(planId);
+    }
+
+    @Test
+    void shouldMovePlanBetweenJobsAndDropItOnDeletion() {
+        UUID planId = UUID.randomUUID();
+        index.onPlanChanged(PlanChangedEvent.upserted(plan(planId, "job-1", 6)));
+        index.onPlanChanged(PlanChangedEvent.upserted(plan(planId, "job-2", 6)));
+
+        Map<String, JobDecoration> decorations = index.getDecorations(List.of("job-1", "job-2"));
+        assert decorations.keySet().equals(Set.of("job-2"));
+
+        index.onPlanChanged(PlanChangedEvent.deleted(plan(planId, "job-2", 6)));
+        assert index.getDecorations(List.of("job-1", "job-2")).isEmpty();
+    }
+
+    private static Plan plan(UUID id, String jobId, int planType) {
+        Plan plan = new Plan();
+        plan.setId(id);
+        plan.setJobId(jobId);
+        plan.setIsActive(Boolean.TRUE);
+        plan.setPlanType(planType);
+        plan.setExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS));
+        return plan;
+    }
+}
@@ -0,0 +1,139 @@
+package com.remotejob.planservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotejob.planservice.outbox.PlanOutboxStore.OutboxRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batches published by the outbox relay against an in-memory stand-in for the {@code plan_outbox}
+ * table, checking that no transaction is open while the broker is waited on.
+ */
+class PlanOutboxRelayTest {
+
+    private final TreeMap<Long, OutboxRow> table = new TreeMap<>();
+    private final TreeSet<Long> claimed = new TreeSet<>();
+    private final List<String> published = new ArrayList<>();
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+    private boolean inTransaction;
+    private PlanOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        PlanOutboxStore store = mock(PlanOutboxStore.class);
+        when(store.claim(anyInt(), any())).thenAnswer(invocation -> {
+            assert inTransaction;
+            if (!claimed.isEmpty()) {
+                return null;
+            }
+            List<OutboxRow> rows = table.values().stream().limit(invocation.<Integer>getArgument(0)).toList();
+            rows.forEach(row -> claimed.add(row.id()));
+            return new ArrayList<>(rows);
+        });
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            ids.forEach(table::remove);
+            claimed.removeAll(ids);
+            return null;
+        }).when(store).delete(anyCollection());
+        doAnswer(invocation -> claimed.removeAll(invocation.<Collection<Long>>getArgument(0)))
+                .when(store).release(anyCollection());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction = true;
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction = false;
+            }
+        });
+
+        doAnswer(invocation -> {
+            assert !inTransaction : "published inside a database transaction";
+            published.add(invocation.<Message>getArgument(2).getMessageProperties().getMessageId());
+            return null;
+        }).when(operations).send(anyString(), anyString(), any(Message.class));
+        RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+
+        relay = new PlanOutboxRelay(store, transactionTemplate, rabbitTemplate, new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), "plan.changes", 2, Duration.ofSeconds(5), Duration.ofSeconds(30), 10,
+                Duration.ofMillis(200));
+    }
+
+    @Test
+    void shouldPublishBatchesInSequenceOrderAndDeleteThemOnceConfirmed() {
+        insert(1, 2, 3);
+
+        relay.relay();
+
+        assert published.equals(List.of("1", "2", "3"));
+        assert table.isEmpty();
+        assert claimed.isEmpty();
+    }
+
+    @Test
+    void shouldKeepAndReleaseRowsWhenTheBrokerDoesNotConfirm() {
+        insert(1, 2, 3);
+        doThrow(new AmqpException("Publisher confirm timed out")).when(operations).waitForConfirmsOrDie(anyLong());
+
+        relay.relay();
+
+        assert published.equals(List.of("1", "2"));
+        assert table.keySet().equals(new TreeSet<>(List.of(1L, 2L, 3L)));
+        assert claimed.isEmpty();
+
+        // The next tick publishes the same changes again, in order
+        doNothing().when(operations).waitForConfirmsOrDie(anyLong());
+        relay.relay();
+
+        assert published.equals(List.of("1", "2", "1", "2", "3"));
+        assert table.isEmpty();
+    }
+
+    @Test
+    void shouldNotPublishWhileAnotherBatchIsClaimed() {
+        insert(1, 2);
+        claimed.add(1L);
+
+        relay.relay();
+
+        assert published.isEmpty();
+        assert table.size() == 2;
+    }
+
+    private void insert(long... ids) {
+        for (long id : ids) {
+            table.put(id, new OutboxRow(id, UUID.randomUUID(), "UPSERTED", "{\"status\":\"PAID\"}", Instant.now()));
+        }
+    }
+}
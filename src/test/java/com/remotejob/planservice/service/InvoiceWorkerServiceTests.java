@@ -0,0 +1,127 @@
+package com.remotejob.planservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.remotejob.planservice.amqp.dto.InvoiceStatusUpdateEvent;
+import com.remotejob.planservice.amqp.dto.PlansToCreateEvent;
+import com.remotejob.planservice.dedup.PlanEventDeduplicator;
+import com.remotejob.planservice.entity.Plan;
+import com.remotejob.planservice.parking.ParkedStatusUpdateStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.mockito.InOrder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Invoice events applied by the worker: plan creation against the application database, and the
+ * parking race against stand-ins for the plan service and parking store.
+ */
+@SpringBootTest
+class InvoiceWorkerServiceTests {
+
+    @Autowired
+    private InvoiceWorkerService invoiceWorkerService;
+    @Autowired
+    private PlanService planService;
+
+    @Test
+    void shouldSkipRedeliveredPlansToCreateEvent() {
+        PlansToCreateEvent event = buildPlansToCreateEvent();
+        List<String> rejections = new ArrayList<>();
+
+        invoiceWorkerService.handlePlansToCreateBatch(List.of(event), (rejected, reason) -> rejections.add(reason));
+        Plan created = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId).orElseThrow();
+
+        // The broker redelivers the same message: the upsert must not run again
+        invoiceWorkerService.handlePlansToCreateBatch(List.of(event), (rejected, reason) -> rejections.add(reason));
+        Plan afterRedelivery = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId).orElseThrow();
+
+        assert rejections.isEmpty();
+        assert created.getId().equals(afterRedelivery.getId());
+        assert created.getUpdatedAt().equals(afterRedelivery.getUpdatedAt());
+        assert created.getVersion().equals(afterRedelivery.getVersion());
+    }
+
+    @Test
+    void shouldApplyRepeatedPlansToCreateEventWithNewEventId() {
+        PlansToCreateEvent event = buildPlansToCreateEvent();
+        invoiceWorkerService.handlePlansToCreateBatch(List.of(event), (rejected, reason) -> { });
+        Plan created = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId).orElseThrow();
+
+        // The producer sends the same content again as a new event: it is applied, not taken for a redelivery
+        event.eventId = UUID.randomUUID().toString();
+        invoiceWorkerService.handlePlansToCreateBatch(List.of(event), (rejected, reason) -> { });
+        Plan afterRepeat = planService.getByUserIdAndInvoiceId(event.userId, event.invoiceId).orElseThrow();
+
+        assert afterRepeat.getVersion() == created.getVersion() + 1;
+    }
+
+    @Test
+    void shouldApplyStatusUpdateToPlanCreatedWhileItWasBeingParked() {
+        PlanService plans = mock(PlanService.class);
+        ParkedStatusUpdateStore parked = mock(ParkedStatusUpdateStore.class);
+        TransactionTemplate transactions = mock(TransactionTemplate.class);
+        when(transactions.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        InvoiceWorkerService worker = new InvoiceWorkerService(plans, parked, transactions, mock(PlanEventDeduplicator.class));
+
+        InvoiceStatusUpdateEvent event = new InvoiceStatusUpdateEvent();
+        event.userId = "user-" + UUID.randomUUID();
+        event.invoiceId = UUID.randomUUID();
+        event.status = "PAID";
+        Plan plan = new Plan();
+        plan.setId(UUID.randomUUID());
+        plan.setUserId(event.userId);
+        plan.setInvoiceId(event.invoiceId);
+        plan.setStatus("CREATED");
+        // Another instance commits the plan right after the first lookup missed it
+        when(plans.getByUserIdAndInvoiceId(event.userId, event.invoiceId))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(plan));
+        when(plans.createOrUpdate(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        worker.handleInvoiceStatusUpdate(event);
+
+        InOrder order = inOrder(parked, plans);
+        order.verify(plans).getByUserIdAndInvoiceId(event.userId, event.invoiceId);
+        order.verify(parked).lock(event.userId, event.invoiceId);
+        order.verify(plans).getByUserIdAndInvoiceId(event.userId, event.invoiceId);
+        verify(parked, never()).park(any());
+        verify(plans).createOrUpdate(plan);
+        assert "PAID".equals(plan.getStatus());
+    }
+
+    private PlansToCreateEvent buildPlansToCreateEvent() {
+        ObjectNode items = new ObjectMapper().createObjectNode();
+        items.put("planName", "basic");
+        items.put("seats", 1);
+
+        PlansToCreateEvent event = new PlansToCreateEvent();
+        event.eventId = UUID.randomUUID().toString();
+        event.userId = "user-" + UUID.randomUUID();
+        event.invoiceId = UUID.randomUUID();
+        event.description = "Test plan";
+        event.isActive = Boolean.TRUE;
+        event.items = items;
+        event.status = "CREATED";
+        event.durationInDays = 30;
+        event.expiresAt = Instant.now().plus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        return event;
+    }
+}